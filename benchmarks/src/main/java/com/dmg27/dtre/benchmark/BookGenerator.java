@@ -0,0 +1,222 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.BuySell;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.InstructionStore;
+import com.dmg27.dtre.trade.Money;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.text.MessageFormat;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * This class generates synthetic books of trade instructions for the benchmarks.
+ * <p>
+ * The entities, currencies and the spread of settlement dates are configurable, and a book is the same
+ * for the same configuration and seed. Books of up to tens of millions of instructions should be
+ * generated into an {@link InstructionStore}, such as an off heap store, rather than a list.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class BookGenerator {
+
+    /**
+     * The most instructions in a generated book.
+     */
+    public static final int MAX_SIZE = 50_000_000;
+
+    /**
+     * The currencies used by default, some with a Sunday to Thursday working week.
+     */
+    private static final String[] CURRENCIES = {"USD", "GBP", "EUR", "SGD", "AED", "SAR", "JPY", "CHF", "AUD", "CAD", "HKD", "NZD"};
+
+    private int entities = 100;
+
+    private String[] currencies = Arrays.copyOf(CURRENCIES, 8);
+
+    private LocalDate firstDate = LocalDate.of(2016, 1, 4);
+
+    private int days = 20;
+
+    private long seed = 27;
+
+    private WorkingWeek workingWeek = WorkingWeek.DEMO_WORKING_WEEK;
+
+    /**
+     * Set the number of entities, named "E0", "E1" and so on.
+     * @param entities The number of entities.
+     * @return This for method chaining.
+     */
+    public BookGenerator entities(int entities) {
+        this.entities = entities;
+        return this;
+    }
+
+    /**
+     * Set the number of currencies, taken from a fixed list of currencies.
+     * @param currencies The number of currencies.
+     * @return This for method chaining.
+     * @throws DtreException When there are too many currencies.
+     */
+    public BookGenerator currencies(int currencies) {
+        if (currencies < 1 || currencies > CURRENCIES.length) {
+            throw new DtreException(MessageFormat.format("of the invalid number of currencies {0}", String.valueOf(currencies)));
+        }
+
+        this.currencies = Arrays.copyOf(CURRENCIES, currencies);
+        return this;
+    }
+
+    /**
+     * Set the first settlement date.
+     * @param firstDate The first settlement date.
+     * @return This for method chaining.
+     */
+    public BookGenerator firstDate(LocalDate firstDate) {
+        this.firstDate = firstDate;
+        return this;
+    }
+
+    /**
+     * Set the number of days over which the settlement dates are spread.
+     * @param days The number of days.
+     * @return This for method chaining.
+     */
+    public BookGenerator days(int days) {
+        this.days = days;
+        return this;
+    }
+
+    /**
+     * Set the seed of the random generator.
+     * @param seed The seed.
+     * @return This for method chaining.
+     */
+    public BookGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Set the working week of the instructions.
+     * @param workingWeek The working week.
+     * @return This for method chaining.
+     */
+    public BookGenerator workingWeek(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+        return this;
+    }
+
+    /**
+     * @return The working week of the instructions.
+     */
+    public WorkingWeek getWorkingWeek() {
+        return this.workingWeek;
+    }
+
+    /**
+     * @return The first settlement date.
+     */
+    public LocalDate getFirstDate() {
+        return this.firstDate;
+    }
+
+    /**
+     * @return The last settlement date.
+     */
+    public LocalDate getLastDate() {
+        return this.firstDate.plusDays(this.days - 1);
+    }
+
+    /**
+     * @return The entities.
+     */
+    public List<String> getEntities() {
+        List<String> names = new ArrayList<>(this.entities);
+        for (int i = 0; i < this.entities; i++) {
+            names.add("E" + i);
+        }
+
+        return names;
+    }
+
+    /**
+     * @return The currencies.
+     */
+    public List<String> getCurrencies() {
+        return Arrays.asList(this.currencies);
+    }
+
+    /**
+     * @return A clock a week after the last settlement date, so that every instruction is settleable.
+     */
+    public Clock getClock() {
+        return Clock.fixed(this.getLastDate().plusDays(7).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Generate a book as a list.
+     * @param size The number of instructions.
+     * @return The instructions.
+     * @throws DtreException When the size is invalid.
+     */
+    public List<Instruction> generate(int size) {
+        List<Instruction> book = new ArrayList<>(checkSize(size));
+        this.generate(size, book::add);
+        return book;
+    }
+
+    /**
+     * Generate a book into a store.
+     * @param store The store.
+     * @param size The number of instructions.
+     * @return The store.
+     * @throws DtreException When the size is invalid.
+     */
+    public InstructionStore generate(InstructionStore store, int size) {
+        this.generate(checkSize(size), store::add);
+        return store.clock(this.getClock());
+    }
+
+    private void generate(int size, Consumer<Instruction> book) {
+        Random random = new Random(this.seed);
+        List<String> names = this.getEntities();
+        Clock clock = this.getClock();
+        for (int i = 0; i < size; i++) {
+            LocalDate settlementDate = this.firstDate.plusDays(random.nextInt(this.days));
+            book.accept(new Instruction()
+                .entity(names.get(random.nextInt(names.size())))
+                .buySell(random.nextBoolean() ? BuySell.B : BuySell.S)
+                .agreedFx(Money.of(1 + random.nextInt(20000), 4))
+                .currencyCode(this.currencies[random.nextInt(this.currencies.length)])
+                .instructionDate(settlementDate.minusDays(random.nextInt(3)))
+                .settlementDate(settlementDate)
+                .units(1 + random.nextInt(1000))
+                .unitPrice(Money.of(1 + random.nextInt(1000000), 2))
+                .clock(clock)
+                .workingWeek(this.workingWeek));
+        }
+    }
+
+    private static int checkSize(int size) {
+        if (size < 0 || size > MAX_SIZE) {
+            throw new DtreException(MessageFormat.format("of the invalid book size {0}", String.valueOf(size)));
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.trade.Instruction;
+import java.util.List;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class is the benchmark state holding a generated book, configured by the benchmark parameters.
+ * <p>
+ * The book is generated as a list of instructions only when a benchmark first asks for it, so that a
+ * benchmark that generates the book straight into a store never holds it on the heap as well.
+ * </p>
+ * @author douglasmcgee
+ */
+@State(Scope.Benchmark)
+public class BookState {
+
+    /**
+     * The number of instructions, up to {@link BookGenerator#MAX_SIZE}.
+     */
+    @Param("100000")
+    public int size;
+
+    /**
+     * The number of entities.
+     */
+    @Param("100")
+    public int entities;
+
+    /**
+     * The number of currencies.
+     */
+    @Param("8")
+    public int currencies;
+
+    /**
+     * The number of days over which the settlement dates are spread.
+     */
+    @Param("20")
+    public int days;
+
+    BookGenerator generator;
+
+    /**
+     * The book, null until first asked for.
+     */
+    private List<Instruction> book;
+
+    @Setup
+    public void setUp() {
+        this.generator = new BookGenerator()
+            .entities(this.entities)
+            .currencies(this.currencies)
+            .days(this.days);
+        this.book = null;
+    }
+
+    /**
+     * Get the book, generating it when first asked for.
+     * @return The instructions of the book.
+     */
+    synchronized List<Instruction> getBook() {
+        if (this.book == null) {
+            this.book = this.generator.generate(this.size);
+        }
+
+        return this.book;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.trade.Trades;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of looking up the settled totals of an entity on a date in settled trades.
+ * @author douglasmcgee
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBenchmark {
+
+    /**
+     * The settled trades and the dates and entities queried, one after another.
+     */
+    @State(Scope.Thread)
+    public static class Queries {
+
+        Trades trades;
+
+        LocalDate[] dates;
+
+        String[] entities;
+
+        int next;
+
+        @Setup
+        public void setUp(BookState book) {
+            this.trades = new Trades()
+                .trades(book.getBook())
+                .workingWeek(book.generator.getWorkingWeek())
+                .settle();
+            List<String> names = book.generator.getEntities();
+            int count = book.days * names.size();
+            this.dates = new LocalDate[count];
+            this.entities = new String[count];
+            for (int i = 0; i < count; i++) {
+                this.dates[i] = book.generator.getFirstDate().plusDays(i / names.size());
+                this.entities[i] = names.get(i % names.size());
+            }
+        }
+
+        int next() {
+            int i = this.next;
+            this.next = i + 1 == this.dates.length ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal getTotalSettledIncomingOnAndFor(Queries queries) {
+        int i = queries.next();
+        return queries.trades.getTotalSettledIncommingOnAndFor(queries.dates[i], queries.entities[i]);
+    }
+
+    @Benchmark
+    public BigDecimal getTotalSettledOutgoingOnAndFor(Queries queries) {
+        int i = queries.next();
+        return queries.trades.getTotalSettledOutgoingOnAndFor(queries.dates[i], queries.entities[i]);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.trade.Trades;
+import com.dmg27.dtre.view.ViewFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of rendering the textual report of settled trades over the whole spread of dates.
+ * @author douglasmcgee
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportBenchmark {
+
+    /**
+     * The settled trades and the buffer the report is rendered into.
+     */
+    @State(Scope.Thread)
+    public static class Report {
+
+        Trades trades;
+
+        StringBuilder out;
+
+        @Setup
+        public void setUp(BookState book) {
+            this.trades = new Trades()
+                .trades(book.getBook())
+                .workingWeek(book.generator.getWorkingWeek())
+                .settle();
+            this.out = new StringBuilder(1 << 16);
+        }
+    }
+
+    @Benchmark
+    public int textualReportView(BookState book, Report report) {
+        report.out.setLength(0);
+        ViewFactory.textualReportView(report.trades, book.generator.getFirstDate(), book.generator.getLastDate().plusDays(7), report.out);
+        return report.out.length();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.OffHeapInstructionStore;
+import com.dmg27.dtre.trade.Trades;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of settling an instruction and of settling and ranking a whole book.
+ * @author douglasmcgee
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SettlementBenchmark {
+
+    /**
+     * The state for settling one instruction after another.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        List<Instruction> book;
+
+        int next;
+
+        @Setup
+        public void setUp(BookState book) {
+            this.book = book.getBook();
+        }
+    }
+
+    /**
+     * The state for settling a book in an off heap store, generated straight into the store without
+     * generating the book as a list.
+     */
+    @State(Scope.Benchmark)
+    public static class StoreState {
+
+        OffHeapInstructionStore store;
+
+        @Setup
+        public void setUp(BookState book) {
+            this.store = new OffHeapInstructionStore(book.generator.getWorkingWeek());
+            book.generator.generate(this.store, book.size);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.store.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Optional<?> instructionSettle(Cursor cursor) {
+        Instruction instruction = cursor.book.get(cursor.next);
+        cursor.next = cursor.next + 1 == cursor.book.size() ? 0 : cursor.next + 1;
+        instruction.settle();
+        return instruction.getSettledMoney();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Trades tradesSettle(BookState book) {
+        return new Trades()
+            .trades(book.getBook())
+            .workingWeek(book.generator.getWorkingWeek())
+            .settle();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Trades tradesSettleWithoutRanking(BookState book) {
+        return new Trades()
+            .trades(book.getBook())
+            .workingWeek(book.generator.getWorkingWeek())
+            .settleWithoutRanking();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] storeSettle(StoreState state) {
+        return state.store.settle();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.benchmark;
+
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of rolling a date to the next working day of a currency.
+ * @author douglasmcgee
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class WorkingDayBenchmark {
+
+    /**
+     * The number of currencies.
+     */
+    @Param("8")
+    public int currencies;
+
+    /**
+     * The number of days rolled, every day of the week included.
+     */
+    @Param("1024")
+    public int days;
+
+    private final WorkingWeek workingWeek = WorkingWeek.DEMO_WORKING_WEEK;
+
+    private String[] currencyCodes;
+
+    private LocalDate[] dates;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BookGenerator generator = new BookGenerator().currencies(this.currencies).days(this.days);
+        List<String> codes = generator.getCurrencies();
+        this.currencyCodes = new String[this.days];
+        this.dates = new LocalDate[this.days];
+        for (int i = 0; i < this.days; i++) {
+            this.currencyCodes[i] = codes.get(i % codes.size());
+            this.dates[i] = generator.getFirstDate().plusDays(i);
+        }
+    }
+
+    @Benchmark
+    public LocalDate getWorkingDate() {
+        int i = this.next;
+        this.next = i + 1 == this.dates.length ? 0 : i + 1;
+        return this.workingWeek.getWorkingDate(this.currencyCodes[i], this.dates[i]);
+    }
+}
@@ -0,0 +1,417 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.core;
+
+import com.dmg27.dtre.load.BinaryInstructionLoader;
+import com.dmg27.dtre.load.BinaryInstructionWriter;
+import com.dmg27.dtre.load.HolidayCalendarLoader;
+import com.dmg27.dtre.load.InstructionLoader;
+import com.dmg27.dtre.load.MappedInstructionLoader;
+import com.dmg27.dtre.load.ParallelInstructionLoader;
+import com.dmg27.dtre.trade.ColumnarInstructionStore;
+import com.dmg27.dtre.trade.HolidayCalendar;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.InstructionStore;
+import com.dmg27.dtre.trade.OffHeapInstructionStore;
+import com.dmg27.dtre.trade.Trades;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmg27.dtre.trade.WorkingWeek.*;
+import static com.dmg27.dtre.view.ViewFactory.textualReportView;
+
+/**
+ * This class provides a main method for the Daily Trades Reporting Engine.
+ * @author douglasmcgee
+ */
+public class Dtre {
+    
+    /**
+     * The logger.
+     */
+    private final static Logger LOGGER = LoggerFactory.getLogger(Dtre.class);
+    
+    /**
+     * Command line option to memory map the trade instructions file.
+     */
+    static final String MAPPED_OPTION = "--mapped";
+    
+    /**
+     * Command line option to memory map the trade instructions file and parse it in parallel,
+     * optionally followed by "=" and the number of threads.
+     */
+    static final String PARALLEL_OPTION = "--parallel";
+    
+    /**
+     * Command line option, followed by "=" and the path of a holidays file, to skip holidays when settling.
+     */
+    static final String HOLIDAYS_OPTION = "--holidays";
+    
+    /**
+     * Command line option to hold the trade instructions in a columnar store.
+     */
+    static final String COLUMNAR_OPTION = "--columnar";
+    
+    /**
+     * Command line option to hold the trade instructions off the heap.
+     */
+    static final String OFF_HEAP_OPTION = "--off-heap";
+    
+    /**
+     * Command line option to read the trade instructions file in the binary format of {@link BinaryInstructionLoader}.
+     */
+    static final String BINARY_OPTION = "--binary";
+    
+    /**
+     * Command line option, followed by "=" and a path, to save the loaded trade instructions in the
+     * binary format of {@link BinaryInstructionLoader} for reloading with {@value #BINARY_OPTION}.
+     */
+    static final String SAVE_OPTION = "--save";
+    
+    /**
+     * The size of the buffer for writing the report.
+     */
+    private static final int REPORT_BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * The clock.
+     */
+    private Clock clock = Clock.systemUTC();
+    
+    /**
+     * The trades instructions to report upon.
+     */
+    private List<Instruction> instructions;
+    
+    /**
+     * The application's main method.
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        Dtre dtre = new Dtre();
+        dtre.execute(args);
+    }
+    
+    /**
+     * Set the {@link Dtre} clock.
+     * @param clock The new clock.
+     * @return This for method chaining.
+     */
+    public Dtre clock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+    
+    /**
+     * Set the instructions to report upon.
+     * @param instructions The instructions.
+     * @return this
+     */
+    public Dtre instructions(List<Instruction> instructions) {
+        this.instructions = instructions;
+        this.instructions.stream()
+            .forEach(i -> i.clock(this.clock));
+        return this;
+    }
+    
+    /**
+     * Execute a trades report with respect to the command line arguments.
+     * @param args Command line arguments.
+     */
+    public void execute(String[] args) {
+        try {
+            this.execute2(args);
+        } catch (DtreException ex) {
+            LOGGER.error("Encountered a problem creating the report because {}.", ex.getMessage());
+        }
+    }
+    
+    /**
+     * Execute a trades report with respect to the command line arguments.
+     * <p>
+     * With no arguments the report is for the demo trade instructions, otherwise
+     * the last argument is the path of a trade instructions file to report upon,
+     * optionally preceded by the option {@value #MAPPED_OPTION} to memory map the file, or
+     * {@value #PARALLEL_OPTION}[=threads] to memory map the file and parse it in parallel, or
+     * {@value #BINARY_OPTION} to read a binary file, by {@value #SAVE_OPTION}=path to save the instructions
+     * to a binary file, and by
+     * {@value #HOLIDAYS_OPTION}=path to skip the holidays in a holidays file when settling, and by
+     * {@value #COLUMNAR_OPTION} to hold the instructions in a columnar store or {@value #OFF_HEAP_OPTION}
+     * to hold them off the heap.
+     * </p>
+     * @param args Command line arguments.
+     * @throws DtreException When there is a problem creating the report.
+     */
+    public void execute2(String[] args) {
+        // Get the trade instructions
+        WorkingWeek workingWeek = DEMO_WORKING_WEEK;
+        InstructionStore store = null;
+        if (args.length == 0) {
+            LOGGER.info("Running in default demo mode with demo trade instructions for the report.");
+            this.instructions(createDemoInstructions());
+        } else {
+            String path = args[args.length - 1];
+            String[] options = Arrays.copyOf(args, args.length - 1);
+            workingWeek = createWorkingWeek(options);
+            InstructionLoader loader = createLoader(options, workingWeek);
+            LOGGER.info("Loading trade instructions for the report from \"{}\".", path);
+            store = createStore(options, workingWeek);
+            if (store != null) {
+                store.clock(this.clock);
+                loader.load(Paths.get(path), store::add);
+            } else {
+                this.instructions(loader.load(Paths.get(path)));
+            }
+            
+            saveInstructions(options, store == null ? this.instructions : store.asList());
+        }
+        
+        if (store == null ? this.instructions.isEmpty() : store.size() == 0) {
+            throw new DtreException("there are no trade instructions to report");
+        }
+        
+        // Create and settle the trades.
+        Trades trades = new Trades().workingWeek(workingWeek);
+        if (store == null) {
+            trades.trades(this.instructions);
+        } else {
+            trades.trades(store);
+        }
+        
+        trades.settle();
+        
+        // Show the report for trades.
+        showReport(trades);
+    }
+    
+    /**
+     * Create the working week for the command line options.
+     * @param options The command line options.
+     * @return The demo working week, with the holidays of the {@value #HOLIDAYS_OPTION} option.
+     * @throws DtreException When the holidays cannot be loaded.
+     */
+    private static WorkingWeek createWorkingWeek(String[] options) {
+        WorkingWeek workingWeek = DEMO_WORKING_WEEK;
+        for (String option : options) {
+            if (option.startsWith(HOLIDAYS_OPTION + "=")) {
+                String path = option.substring(HOLIDAYS_OPTION.length() + 1);
+                LOGGER.info("Loading holidays from \"{}\".", path);
+                HolidayCalendar holidays = new HolidayCalendarLoader().load(Paths.get(path));
+                workingWeek = DEMO_WORKING_WEEK.withHolidays(holidays, holidays.getFirstYear(), holidays.getLastYear());
+            }
+        }
+        
+        return workingWeek;
+    }
+    
+    /**
+     * Create the store for the command line options.
+     * @param options The command line options.
+     * @param workingWeek The working week for the stored instructions.
+     * @return The store of the {@value #COLUMNAR_OPTION} or {@value #OFF_HEAP_OPTION} option, or null to hold
+     * the instructions as a list.
+     */
+    private static InstructionStore createStore(String[] options, WorkingWeek workingWeek) {
+        InstructionStore store = null;
+        for (String option : options) {
+            if (COLUMNAR_OPTION.equals(option)) {
+                store = new ColumnarInstructionStore(workingWeek);
+            } else if (OFF_HEAP_OPTION.equals(option)) {
+                store = new OffHeapInstructionStore(workingWeek);
+            }
+        }
+        
+        return store;
+    }
+    
+    /**
+     * Save the loaded instructions to the file of the {@value #SAVE_OPTION} option, if any.
+     * @param options The command line options.
+     * @param instructions The instructions.
+     * @throws DtreException When the instructions cannot be saved.
+     */
+    private static void saveInstructions(String[] options, List<Instruction> instructions) {
+        for (String option : options) {
+            if (option.startsWith(SAVE_OPTION + "=")) {
+                String path = option.substring(SAVE_OPTION.length() + 1);
+                LOGGER.info("Saving trade instructions to \"{}\".", path);
+                new BinaryInstructionWriter().write(Paths.get(path), instructions);
+            }
+        }
+    }
+    
+    /**
+     * Create the loader for a trade instructions file.
+     * @param options The command line options.
+     * @param workingWeek The working week for the loaded instructions.
+     * @return The loader.
+     * @throws DtreException When there is an unknown option.
+     */
+    private static InstructionLoader createLoader(String[] options, WorkingWeek workingWeek) {
+        InstructionLoader loader = new InstructionLoader(workingWeek);
+        for (String option : options) {
+            if (MAPPED_OPTION.equals(option)) {
+                loader = new MappedInstructionLoader(workingWeek);
+            } else if (PARALLEL_OPTION.equals(option)) {
+                loader = new ParallelInstructionLoader(workingWeek, Runtime.getRuntime().availableProcessors());
+            } else if (option.startsWith(PARALLEL_OPTION + "=")) {
+                loader = new ParallelInstructionLoader(workingWeek, parseParallelism(option.substring(PARALLEL_OPTION.length() + 1)));
+            } else if (BINARY_OPTION.equals(option)) {
+                loader = new BinaryInstructionLoader(workingWeek);
+            } else if (!option.startsWith(HOLIDAYS_OPTION + "=") && !option.startsWith(SAVE_OPTION + "=")
+                && !COLUMNAR_OPTION.equals(option) && !OFF_HEAP_OPTION.equals(option)) {
+                throw new DtreException(MessageFormat.format("of the unknown option \"{0}\"", option));
+            }
+        }
+        
+        return loader;
+    }
+    
+    /**
+     * Parse the number of threads for the {@value #PARALLEL_OPTION} option.
+     * @param parallelism The number of threads.
+     * @return The number of threads.
+     * @throws DtreException When the number of threads is not a positive integer.
+     */
+    private static int parseParallelism(String parallelism) {
+        try {
+            return Integer.parseInt(parallelism);
+        } catch (NumberFormatException ex) {
+            throw new DtreException(MessageFormat.format("of the bad number of threads \"{0}\"", parallelism), ex);
+        }
+    }
+    
+    /**
+     * Show the report for the trades.
+     * @param trades The trades.
+     */
+    private static void showReport(Trades trades) {
+        // The settled trades are those that were settleable, so take the period from the settled dates in the index.
+        String from = trades.getFirstSettledDate()
+            .orElseThrow(() -> new DtreException("there are no settled trades to report"))
+            .toString();
+        String to = trades.getLastSettledDate().get().toString();
+        showReport(trades, from, to);
+    }
+    
+    /**
+     * Show the report for the trades in a period.
+     * @param trades The trades.
+     * @param from Start of the period.
+     * @param to End of the period.
+     */
+    private static void showReport(Trades trades, String from, String to) {
+        // Write through a bounded buffer rather than building the whole report first.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), REPORT_BUFFER_SIZE);
+        textualReportView(trades, LocalDate.parse(from), LocalDate.parse(to), out);
+        try {
+            out.write(System.lineSeparator());
+            out.flush();
+        } catch (IOException ex) {
+            throw new DtreException("unable to write the report", ex);
+        }
+    }
+    
+    /**
+     * Create demonstration trade instructions.
+     * @return The instructions.
+     */
+    private static List<Instruction> createDemoInstructions() {
+        
+        List<Instruction> instructions = new ArrayList<>();
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "07 Jan 2018", 10, "150.5"));  // SUN
+        
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "08 Jan 2018", 11, "150.5")); 
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 5000, "1.0")); 
+        instructions.add(createInstruction("foo", "B", "0.50", "SGD", "01 Jan 2018", "08 Jan 2018", 20, "100.25")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 3000, "1.0")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2019", "08 Jan 2019", 9999, "1.0")); // future
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 3001, "1.0")); 
+        instructions.add(createInstruction("gla", "S", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 3002, "1.0")); 
+        instructions.add(createInstruction("lam", "B", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 2000, "1.0")); 
+        instructions.add(createInstruction("lam", "B", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 2001, "1.0")); 
+        instructions.add(createInstruction("lam", "S", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 2002, "1.0")); 
+        instructions.add(createInstruction("win", "B", "1.00", "USD", "01 Jan 2018", "08 Jan 2018", 1000, "1.0"));
+
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "09 Jan 2018", 12, "150.5")); 
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 5000, "1.0")); 
+        instructions.add(createInstruction("foo", "B", "0.50", "SGD", "01 Jan 2018", "09 Jan 2018", 21, "100.25")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 3000, "1.0")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 3001, "1.0")); 
+        instructions.add(createInstruction("gla", "S", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 3002, "1.0")); 
+        instructions.add(createInstruction("lam", "B", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 2000, "1.0")); 
+        instructions.add(createInstruction("lam", "B", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 2001, "1.0")); 
+        instructions.add(createInstruction("lam", "S", "1.00", "USD", "01 Jan 2018", "09 Jan 2018", 2002, "1.0")); 
+
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "10 Jan 2018", 13, "150.5")); 
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "10 Jan 2018", 5000, "1.0")); 
+        instructions.add(createInstruction("foo", "B", "0.50", "SGD", "01 Jan 2018", "10 Jan 2018", 22, "100.25")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "10 Jan 2018", 3000, "1.0")); 
+        instructions.add(createInstruction("gla", "B", "1.00", "USD", "01 Jan 2018", "10 Jan 2018", 3001, "1.0")); 
+        instructions.add(createInstruction("gla", "S", "1.00", "USD", "01 Jan 2018", "10 Jan 2018", 3002, "1.0")); 
+
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "11 Jan 2018", 14, "150.5")); 
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "11 Jan 2018", 5000, "1.0")); 
+        instructions.add(createInstruction("foo", "B", "0.50", "SGD", "01 Jan 2018", "11 Jan 2018", 23, "100.25")); 
+
+        instructions.add(createInstruction("bar", "B", "0.22", "AED", "01 Jan 2018", "12 Jan 2018", 15, "150.5")); 
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "12 Jan 2018", 5000, "1.0")); 
+
+        instructions.add(createInstruction("car", "S", "1.00", "USD", "01 Jan 2018", "13 Jan 2018", 5001, "1.0")); // SAT
+        
+        return instructions;
+    }
+    
+    /**
+     * Create an {@link Instruction} instance.
+     * @param entity
+     * @param buySell
+     * @param agreedFx
+     * @param currencyCode
+     * @param instructionDateString
+     * @param settlementDateString
+     * @param units
+     * @param unitPriceString
+     * @return 
+     */
+    public static Instruction createInstruction(
+            String entity, 
+            String buySell, 
+            String agreedFx, 
+            String currencyCode, 
+            String instructionDateString, 
+            String settlementDateString, 
+            int units,
+            String unitPriceString) {
+        return new Instruction()
+            .entity(entity)
+            .buySell(buySell)
+            .agreedFx(agreedFx)
+            .currencyCode(currencyCode)
+            .instructionDate(instructionDateString)
+            .settlementDate(settlementDateString)
+            .units(units)
+            .unitPrice(unitPriceString)
+            .workingWeek(DEMO_WORKING_WEEK)
+            ;
+    }
+    
+}
@@ -0,0 +1,177 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.core;
+
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.Trades;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * This class settles trade instructions as their effective settlement dates arrive.
+ * <p>
+ * Instructions that are due when scheduled are added to the trades at once. The rest wait in a queue
+ * ordered by effective settlement date, and each {@link #roll()} adds the instructions that have fallen
+ * due by the date of the clock to the trades, which settles them. Checking for due instructions only
+ * looks at the head of the queue, so the work is O(log n) per instruction rather than a rescan of the
+ * book. Instructions falling due together are added in the order they were scheduled.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class SettlementScheduler {
+
+    /**
+     * The clock.
+     */
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * The trades the instructions are added to when they are due, settled so that they are ranked.
+     */
+    private Trades trades = new Trades().settle();
+
+    /**
+     * The instructions not yet due, earliest first.
+     */
+    private final PriorityQueue<Scheduled> pending = new PriorityQueue<>();
+
+    /**
+     * The number of instructions scheduled, used to keep the order of instructions due on the same date.
+     */
+    private long sequence;
+
+    /**
+     * Set the clock, which is also set on the instructions scheduled.
+     * @param clock The clock.
+     * @return This for method chaining.
+     */
+    public SettlementScheduler clock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Set the trades the instructions are added to when they are due, which are ranked as they are added
+     * when they have been settled.
+     * @param trades The trades.
+     * @return This for method chaining.
+     */
+    public SettlementScheduler trades(Trades trades) {
+        this.trades = trades;
+        return this;
+    }
+
+    /**
+     * @return The trades the instructions are added to when they are due.
+     */
+    public Trades getTrades() {
+        return this.trades;
+    }
+
+    /**
+     * Schedule an instruction for settlement.
+     * @param instruction The instruction.
+     * @return This for method chaining.
+     * @see #schedule(Collection)
+     */
+    public SettlementScheduler schedule(Instruction instruction) {
+        return this.schedule(Collections.singletonList(instruction));
+    }
+
+    /**
+     * Schedule instructions for settlement, first rolling to the date of the clock. Instructions that
+     * are due are added to the trades and the rest are queued until they are due.
+     * @param instructions The instructions, in order of arrival.
+     * @return This for method chaining.
+     */
+    public SettlementScheduler schedule(Collection<Instruction> instructions) {
+        this.roll();
+        long today = LocalDate.now(this.clock).toEpochDay();
+        List<Instruction> due = new ArrayList<>();
+        for (Instruction instruction : instructions) {
+            Scheduled scheduled = new Scheduled(instruction.clock(this.clock), this.sequence++);
+            if (scheduled.epochDay <= today) {
+                due.add(instruction);
+            } else {
+                this.pending.add(scheduled);
+            }
+        }
+
+        if (!due.isEmpty()) {
+            this.trades.add(due);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the instructions that have fallen due by the date of the clock to the trades.
+     * @return The number of instructions added.
+     */
+    public int roll() {
+        long today = LocalDate.now(this.clock).toEpochDay();
+        if (this.pending.isEmpty() || this.pending.peek().epochDay > today) {
+            return 0;
+        }
+
+        List<Instruction> due = new ArrayList<>();
+        while (!this.pending.isEmpty() && this.pending.peek().epochDay <= today) {
+            due.add(this.pending.poll().instruction);
+        }
+
+        this.trades.add(due);
+        return due.size();
+    }
+
+    /**
+     * @return The instructions not yet due, earliest first.
+     */
+    public List<Instruction> getPending() {
+        return this.pending.stream()
+            .sorted()
+            .map(scheduled -> scheduled.instruction)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The number of instructions not yet due.
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * An instruction waiting for its effective settlement date.
+     */
+    private static final class Scheduled implements Comparable<Scheduled> {
+
+        final Instruction instruction;
+
+        final long epochDay;
+
+        final long sequence;
+
+        Scheduled(Instruction instruction, long sequence) {
+            this.instruction = instruction;
+            this.epochDay = instruction.getEffectiveSettlementDate().toEpochDay();
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Scheduled other) {
+            int compare = Long.compare(this.epochDay, other.epochDay);
+            return compare != 0 ? compare : Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.BuySell;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.Money;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * This class loads trade instructions from a binary file written by {@link BinaryInstructionWriter},
+ * memory mapping the file and reading fixed width records without parsing any text.
+ * <p>
+ * All values are big endian. The file is made of, in order:
+ * </p>
+ * <ul>
+ * <li>a {@value #HEADER_SIZE} byte header: the magic number, the version and record size as shorts, the
+ * numbers of records, entities, currency codes and big amounts, the number of records in a block, and
+ * the checksum of the header;</li>
+ * <li>the entity dictionary block and the currency code dictionary block, each a UTF-8 string per entry
+ * preceded by its length as a short;</li>
+ * <li>the big amounts block, with the record number, field and text of each amount that does not fit in a
+ * scaled long;</li>
+ * <li>record blocks of up to the block size records of {@value #RECORD_SIZE} bytes.</li>
+ * </ul>
+ * <p>
+ * Each block is followed by its CRC-32 checksum as an int. A record is laid out as:
+ * </p>
+ * <pre>
+ *  0 int  entity id          20 byte buy/sell
+ *  4 int  currency code id   21 byte agreed fx scale
+ *  8 int  instruction day    22 byte unit price scale
+ * 12 int  settlement day     24 long agreed fx unscaled
+ * 16 int  units              32 long unit price unscaled
+ * </pre>
+ * @author douglasmcgee
+ */
+public class BinaryInstructionLoader extends InstructionLoader {
+
+    /**
+     * The magic number at the start of a file, "DTRE".
+     */
+    static final int MAGIC = 0x44545245;
+
+    /**
+     * The version of the format.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The size of the header in bytes, including its checksum.
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The size of a record in bytes.
+     */
+    static final int RECORD_SIZE = 40;
+
+    /**
+     * The default number of records in a block.
+     */
+    static final int DEFAULT_BLOCK_RECORDS = 1 << 12;
+
+    /**
+     * The size of a block checksum in bytes.
+     */
+    static final int CHECKSUM_SIZE = 4;
+
+    static final int ENTITY = 0;
+
+    static final int CURRENCY_CODE = 4;
+
+    static final int INSTRUCTION_DAY = 8;
+
+    static final int SETTLEMENT_DAY = 12;
+
+    static final int UNITS = 16;
+
+    static final int BUY_SELL = 20;
+
+    static final int AGREED_FX_SCALE = 21;
+
+    static final int UNIT_PRICE_SCALE = 22;
+
+    static final int AGREED_FX = 24;
+
+    static final int UNIT_PRICE = 32;
+
+    /**
+     * The flag for a sell.
+     */
+    static final byte SELL = 1;
+
+    /**
+     * The scale of an amount in the big amounts block.
+     */
+    static final byte BIG = -1;
+
+    /**
+     * The size of the mapped window of record blocks.
+     */
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    /**
+     * Create an instance of the {@link BinaryInstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     */
+    public BinaryInstructionLoader(WorkingWeek workingWeek) {
+        super(workingWeek);
+    }
+
+    /**
+     * Load the instructions in a file, handing each on as it is read.
+     * @param path The file.
+     * @param consumer The consumer of the instructions, called in file order.
+     * @throws DtreException When the file cannot be read or is bad.
+     */
+    @Override
+    public void load(Path path, Consumer<Instruction> consumer) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.load(channel, path.toString(), consumer);
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to read trade instructions from \"{0}\"", path), ex);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw badFile(path.toString(), "it is truncated");
+        }
+    }
+
+    /**
+     * Load the instructions from a channel, handing each on as it is read.
+     * @param channel The channel.
+     * @param source The name of the source for error messages.
+     * @param consumer The consumer of the instructions, called in file order.
+     * @throws IOException When the channel fails.
+     * @throws DtreException When the file is bad.
+     */
+    private void load(FileChannel channel, String source, Consumer<Instruction> consumer) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            throw badFile(source, "it is truncated");
+        }
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC) {
+            throw badFile(source, "it is not a binary trade instructions file");
+        }
+
+        short version = header.getShort();
+        if (version != VERSION || header.getShort() != RECORD_SIZE) {
+            throw badFile(source, MessageFormat.format("it has the unsupported version {0}", String.valueOf(version)));
+        }
+
+        int recordCount = header.getInt();
+        int entityCount = header.getInt();
+        int currencyCodeCount = header.getInt();
+        int bigCount = header.getInt();
+        int blockRecords = header.getInt();
+        checkBlock(header, 0, HEADER_SIZE - CHECKSUM_SIZE, source, "header");
+        if (recordCount < 0 || entityCount < 0 || currencyCodeCount < 0 || bigCount < 0 || blockRecords <= 0) {
+            throw badFile(source, "it has a bad header");
+        }
+
+        // The dictionaries and big amounts are small, so map all of what remains up to a window.
+        ByteBuffer blocks = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, Math.min(size - HEADER_SIZE, WINDOW_SIZE));
+        String[] entities = readDictionary(blocks, entityCount, source, "entity dictionary");
+        String[] currencyCodes = readDictionary(blocks, currencyCodeCount, source, "currency code dictionary");
+        Map<Long, Money> bigs = readBigs(blocks, bigCount, source);
+
+        long position = HEADER_SIZE + blocks.position();
+        long blockSize = (long) blockRecords * RECORD_SIZE + CHECKSUM_SIZE;
+        long windowBlocks = Math.max(1, WINDOW_SIZE / blockSize);
+        int index = 0;
+        int blockNumber = 0;
+        while (index < recordCount) {
+            int windowRecords = (int) Math.min((long) recordCount - index, windowBlocks * blockRecords);
+            long windowSize = (long) windowRecords * RECORD_SIZE + ((long) windowRecords + blockRecords - 1) / blockRecords * CHECKSUM_SIZE;
+            if (position + windowSize > size) {
+                throw badFile(source, "it is truncated");
+            }
+
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            int start = 0;
+            for (int read = 0; read < windowRecords; read += blockRecords) {
+                int records = Math.min(blockRecords, windowRecords - read);
+                checkBlock(window, start, records * RECORD_SIZE, source, "record block " + blockNumber++);
+                for (int i = 0; i < records; i++, index++) {
+                    consumer.accept(this.readRecord(window, start + i * RECORD_SIZE, index, entities, currencyCodes, bigs, source));
+                }
+
+                start += records * RECORD_SIZE + CHECKSUM_SIZE;
+            }
+
+            position += windowSize;
+        }
+    }
+
+    /**
+     * Read an instruction from a record.
+     * @param buffer The buffer holding the record.
+     * @param offset The offset of the record in the buffer.
+     * @param index The number of the record.
+     * @param entities The entity dictionary.
+     * @param currencyCodes The currency code dictionary.
+     * @param bigs The big amounts, keyed on record number and field.
+     * @param source The name of the source for error messages.
+     * @return The instruction.
+     * @throws DtreException When the record is bad.
+     */
+    private Instruction readRecord(ByteBuffer buffer, int offset, int index, String[] entities, String[] currencyCodes,
+        Map<Long, Money> bigs, String source) {
+        try {
+            return new Instruction()
+                .entity(entities[buffer.getInt(offset + ENTITY)])
+                .buySell(buffer.get(offset + BUY_SELL) == SELL ? BuySell.S : BuySell.B)
+                .agreedFx(readMoney(buffer, offset, AGREED_FX, AGREED_FX_SCALE, index, bigs))
+                .currencyCode(currencyCodes[buffer.getInt(offset + CURRENCY_CODE)])
+                .instructionDate(LocalDate.ofEpochDay(buffer.getInt(offset + INSTRUCTION_DAY)))
+                .settlementDate(LocalDate.ofEpochDay(buffer.getInt(offset + SETTLEMENT_DAY)))
+                .units(buffer.getInt(offset + UNITS))
+                .unitPrice(readMoney(buffer, offset, UNIT_PRICE, UNIT_PRICE_SCALE, index, bigs))
+                .workingWeek(this.workingWeek);
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | DateTimeException ex) {
+            throw badFile(source, MessageFormat.format("record {0} is bad", String.valueOf(index)));
+        } catch (DtreException ex) {
+            throw badFile(source, MessageFormat.format("record {0} is bad because {1}", String.valueOf(index), ex.getMessage()));
+        }
+    }
+
+    /**
+     * Read an amount from a record.
+     * @param buffer The buffer holding the record.
+     * @param offset The offset of the record in the buffer.
+     * @param field The offset of the unscaled amount in the record.
+     * @param scaleField The offset of the scale in the record.
+     * @param index The number of the record.
+     * @param bigs The big amounts, keyed on record number and field.
+     * @return The amount.
+     */
+    private static Money readMoney(ByteBuffer buffer, int offset, int field, int scaleField, int index, Map<Long, Money> bigs) {
+        byte scale = buffer.get(offset + scaleField);
+        if (scale == BIG) {
+            Money amount = bigs.get(bigKey(index, field));
+            if (amount == null) {
+                throw new IllegalArgumentException();
+            }
+
+            return amount;
+        }
+
+        return Money.of(buffer.getLong(offset + field), scale);
+    }
+
+    /**
+     * Read a dictionary block.
+     * @param buffer The buffer positioned at the block.
+     * @param count The number of entries.
+     * @param source The name of the source for error messages.
+     * @param block The name of the block for error messages.
+     * @return The entries.
+     * @throws DtreException When the checksum is bad.
+     */
+    private static String[] readDictionary(ByteBuffer buffer, int count, String source, String block) {
+        int start = buffer.position();
+        String[] symbols = new String[count];
+        for (int i = 0; i < count; i++) {
+            symbols[i] = readString(buffer);
+        }
+
+        checkBlock(buffer, start, buffer.position() - start, source, block);
+        buffer.position(buffer.position() + CHECKSUM_SIZE);
+        return symbols;
+    }
+
+    /**
+     * Read the big amounts block.
+     * @param buffer The buffer positioned at the block.
+     * @param count The number of amounts.
+     * @param source The name of the source for error messages.
+     * @return The amounts keyed on record number and field.
+     * @throws DtreException When the checksum or an amount is bad.
+     */
+    private static Map<Long, Money> readBigs(ByteBuffer buffer, int count, String source) {
+        int start = buffer.position();
+        Map<Long, Money> bigs = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int index = buffer.getInt();
+            byte field = buffer.get();
+            String amount = readString(buffer);
+            try {
+                bigs.put(bigKey(index, field), Money.of(new BigDecimal(amount)));
+            } catch (NumberFormatException ex) {
+                throw badFile(source, MessageFormat.format("of the bad amount \"{0}\"", amount));
+            }
+        }
+
+        checkBlock(buffer, start, buffer.position() - start, source, "big amounts");
+        buffer.position(buffer.position() + CHECKSUM_SIZE);
+        return bigs;
+    }
+
+    /**
+     * Read a string preceded by its length as a short.
+     * @param buffer The buffer positioned at the length.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check the checksum following a block.
+     * @param buffer The buffer holding the block.
+     * @param start The offset of the block in the buffer.
+     * @param length The length of the block, without its checksum.
+     * @param source The name of the source for error messages.
+     * @param block The name of the block for error messages.
+     * @throws DtreException When the checksum is bad.
+     */
+    static void checkBlock(ByteBuffer buffer, int start, int length, String source, String block) {
+        if (buffer.getInt(start + length) != checksum(buffer, start, length)) {
+            throw badFile(source, MessageFormat.format("the {0} has a bad checksum", block));
+        }
+    }
+
+    /**
+     * Calculate the checksum of a block.
+     * @param buffer The buffer holding the block.
+     * @param start The offset of the block in the buffer.
+     * @param length The length of the block.
+     * @return The CRC-32 of the block.
+     */
+    static int checksum(ByteBuffer buffer, int start, int length) {
+        ByteBuffer block = buffer.duplicate();
+        block.limit(start + length).position(start);
+        CRC32 crc = new CRC32();
+        crc.update(block);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Get the key of a big amount.
+     * @param index The number of the record.
+     * @param field The offset of the amount in the record.
+     * @return The key.
+     */
+    static long bigKey(int index, int field) {
+        return (long) index * RECORD_SIZE + field;
+    }
+
+    /**
+     * Create the exception for a bad file.
+     * @param source The name of the source.
+     * @param reason The problem with the file.
+     * @return The exception.
+     */
+    static DtreException badFile(String source, String reason) {
+        return new DtreException(MessageFormat.format("\"{0}\" is bad because {1}", source, reason));
+    }
+}
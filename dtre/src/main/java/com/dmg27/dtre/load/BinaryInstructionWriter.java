@@ -0,0 +1,243 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.BuySell;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.Money;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.dmg27.dtre.load.BinaryInstructionLoader.*;
+
+/**
+ * This class writes trade instructions to a binary file in the format read by {@link BinaryInstructionLoader},
+ * so that they can be reloaded without parsing text.
+ * <p>
+ * Only the instructions as loaded are written, not their settlement, which is repeated on reloading.
+ * </p>
+ * @author douglasmcgee
+ */
+public class BinaryInstructionWriter {
+
+    /**
+     * The longest entity or currency code, in UTF-8 bytes.
+     */
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    /**
+     * The number of records in a block.
+     */
+    private final int blockRecords;
+
+    /**
+     * Create an instance of the {@link BinaryInstructionWriter} class.
+     */
+    public BinaryInstructionWriter() {
+        this(DEFAULT_BLOCK_RECORDS);
+    }
+
+    /**
+     * Create an instance of the {@link BinaryInstructionWriter} class.
+     * @param blockRecords The number of records in a block.
+     */
+    BinaryInstructionWriter(int blockRecords) {
+        this.blockRecords = blockRecords;
+    }
+
+    /**
+     * Write instructions to a file, replacing it.
+     * @param path The file.
+     * @param instructions The instructions.
+     * @throws DtreException When the file cannot be written.
+     */
+    public void write(Path path, List<Instruction> instructions) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            this.write(channel, instructions);
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to write trade instructions to \"{0}\"", path), ex);
+        }
+    }
+
+    /**
+     * Write instructions to a channel.
+     * @param channel The channel.
+     * @param instructions The instructions.
+     * @throws IOException When the channel fails.
+     */
+    private void write(FileChannel channel, List<Instruction> instructions) throws IOException {
+        Map<String, Integer> entities = new LinkedHashMap<>();
+        Map<String, Integer> currencyCodes = new LinkedHashMap<>();
+        ByteBuffer bigs = ByteBuffer.allocate(1 << 10);
+        int bigCount = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            entities.putIfAbsent(instruction.getEntity(), entities.size());
+            currencyCodes.putIfAbsent(instruction.getCurrencyCode(), currencyCodes.size());
+            if (!isCompact(instruction.getAgreedFxMoney())) {
+                bigs = putBig(bigs, i, AGREED_FX, instruction.getAgreedFxMoney());
+                bigCount++;
+            }
+
+            if (!isCompact(instruction.getUnitPriceMoney())) {
+                bigs = putBig(bigs, i, UNIT_PRICE, instruction.getUnitPriceMoney());
+                bigCount++;
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+            .putInt(MAGIC)
+            .putShort(VERSION)
+            .putShort((short) RECORD_SIZE)
+            .putInt(instructions.size())
+            .putInt(entities.size())
+            .putInt(currencyCodes.size())
+            .putInt(bigCount)
+            .putInt(this.blockRecords);
+        writeBlock(channel, header);
+        writeBlock(channel, putStrings(new ArrayList<>(entities.keySet())));
+        writeBlock(channel, putStrings(new ArrayList<>(currencyCodes.keySet())));
+        writeBlock(channel, bigs);
+
+        ByteBuffer block = ByteBuffer.allocate(this.blockRecords * RECORD_SIZE + CHECKSUM_SIZE);
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = instructions.get(i);
+            int offset = block.position();
+            block.putInt(offset + ENTITY, entities.get(instruction.getEntity()))
+                .putInt(offset + CURRENCY_CODE, currencyCodes.get(instruction.getCurrencyCode()))
+                .putInt(offset + INSTRUCTION_DAY, (int) instruction.getInstructionDate().toEpochDay())
+                .putInt(offset + SETTLEMENT_DAY, (int) instruction.getSettlementDate().toEpochDay())
+                .putInt(offset + UNITS, instruction.getUnits())
+                .put(offset + BUY_SELL, instruction.getBuySell() == BuySell.S ? SELL : 0);
+            putMoney(block, offset + AGREED_FX, offset + AGREED_FX_SCALE, instruction.getAgreedFxMoney());
+            putMoney(block, offset + UNIT_PRICE, offset + UNIT_PRICE_SCALE, instruction.getUnitPriceMoney());
+            block.position(offset + RECORD_SIZE);
+            if (block.position() == this.blockRecords * RECORD_SIZE) {
+                writeBlock(channel, block);
+                block.clear();
+            }
+        }
+
+        if (block.position() > 0) {
+            writeBlock(channel, block);
+        }
+    }
+
+    /**
+     * Check if an amount fits in a scaled long with the scale in a byte.
+     * @param amount The amount.
+     * @return True when the amount fits.
+     */
+    private static boolean isCompact(Money amount) {
+        BigDecimal value = amount.toBigDecimal();
+        return value.scale() >= 0 && value.scale() <= Byte.MAX_VALUE && value.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    /**
+     * Put an amount in a record, flagging it as big when it does not fit.
+     * @param block The block holding the record.
+     * @param field The offset of the unscaled amount in the block.
+     * @param scaleField The offset of the scale in the block.
+     * @param amount The amount.
+     */
+    private static void putMoney(ByteBuffer block, int field, int scaleField, Money amount) {
+        if (isCompact(amount)) {
+            BigDecimal value = amount.toBigDecimal();
+            block.putLong(field, value.unscaledValue().longValue()).put(scaleField, (byte) value.scale());
+        } else {
+            block.putLong(field, 0).put(scaleField, BIG);
+        }
+    }
+
+    /**
+     * Put a big amount in the big amounts block.
+     * @param bigs The big amounts block.
+     * @param index The number of the record.
+     * @param field The offset of the amount in the record.
+     * @param amount The amount.
+     * @return The block, which is replaced when it has to grow.
+     */
+    private static ByteBuffer putBig(ByteBuffer bigs, int index, int field, Money amount) {
+        byte[] bytes = toBytes(amount.toBigDecimal().toString());
+        bigs = ensureRemaining(bigs, Integer.BYTES + 1 + Short.BYTES + bytes.length);
+        return bigs.putInt(index).put((byte) field).putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Put strings in a dictionary block.
+     * @param strings The strings.
+     * @return The block.
+     */
+    private static ByteBuffer putStrings(List<String> strings) {
+        ByteBuffer block = ByteBuffer.allocate(1 << 10);
+        for (String string : strings) {
+            byte[] bytes = toBytes(string);
+            block = ensureRemaining(block, Short.BYTES + bytes.length).putShort((short) bytes.length).put(bytes);
+        }
+
+        return block;
+    }
+
+    /**
+     * Encode a string for a dictionary or big amounts block.
+     * @param string The string.
+     * @return The UTF-8 bytes of the string.
+     * @throws DtreException When the string is too long.
+     */
+    private static byte[] toBytes(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new DtreException(MessageFormat.format("of the value longer than {0} bytes \"{1}\"",
+                String.valueOf(MAX_STRING_LENGTH), string));
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Make room in a block.
+     * @param block The block.
+     * @param length The room needed, not counting the checksum.
+     * @return The block, or a larger copy of it.
+     */
+    private static ByteBuffer ensureRemaining(ByteBuffer block, int length) {
+        if (block.remaining() >= length + CHECKSUM_SIZE) {
+            return block;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(block.capacity() * 2, block.position() + length + CHECKSUM_SIZE));
+        block.flip();
+        return larger.put(block);
+    }
+
+    /**
+     * Write a block followed by its checksum.
+     * @param channel The channel.
+     * @param block The block, with room for the checksum after its position.
+     * @throws IOException When the channel fails.
+     */
+    private static void writeBlock(FileChannel channel, ByteBuffer block) throws IOException {
+        int length = block.position();
+        block.putInt(checksum(block, 0, length)).flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+    }
+}
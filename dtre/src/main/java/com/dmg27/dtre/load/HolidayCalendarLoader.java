@@ -0,0 +1,102 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.HolidayCalendar;
+import com.dmg27.dtre.util.DateCodec;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This class loads a holiday calendar from comma separated text, one holiday per line.
+ * <p>
+ * The fields of a line are the currency code and the date of the holiday, in the same form
+ * as the dates of trade instructions, for example:
+ * </p>
+ * <pre>
+ * GBP,25 Dec 2018
+ * </pre>
+ * <p>
+ * Blank lines and lines starting with '#' are ignored.
+ * </p>
+ * @author douglasmcgee
+ */
+public class HolidayCalendarLoader {
+
+    /**
+     * Load a holiday calendar from a file.
+     * @param path The file.
+     * @return The holiday calendar.
+     * @throws DtreException When the file cannot be read or has a bad line.
+     */
+    public HolidayCalendar load(Path path) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return this.load(reader, path.toString());
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to read holidays from \"{0}\"", path), ex);
+        }
+    }
+
+    /**
+     * Load a holiday calendar from a reader.
+     * @param reader The reader.
+     * @param source The name of the source for error messages.
+     * @return The holiday calendar.
+     * @throws IOException When the reader fails.
+     * @throws DtreException When there is a bad line.
+     */
+    public HolidayCalendar load(Reader reader, String source) throws IOException {
+        HolidayCalendar calendar = new HolidayCalendar();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            ++lineNumber;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) == InstructionLoader.COMMENT) {
+                continue;
+            }
+
+            try {
+                this.parse(calendar, trimmed);
+            } catch (DtreException ex) {
+                throw InstructionLoader.badLine(source, lineNumber, ex);
+            }
+        }
+
+        return calendar;
+    }
+
+    /**
+     * Parse a holiday from a line into the calendar.
+     * @param calendar The calendar.
+     * @param line The line.
+     * @throws DtreException When the line is bad.
+     */
+    private void parse(HolidayCalendar calendar, String line) {
+        int separator = line.indexOf(InstructionLoader.SEPARATOR);
+        if (separator < 0 || line.indexOf(InstructionLoader.SEPARATOR, separator + 1) >= 0) {
+            throw new DtreException("there are not 2 comma separated fields");
+        }
+
+        String dateString = line.substring(separator + 1).trim();
+        try {
+            calendar.holiday(line.substring(0, separator).trim(), DateCodec.parse(dateString));
+        } catch (DateTimeParseException ex) {
+            throw new DtreException(MessageFormat.format("bad holiday date \"{0}\"", dateString), ex);
+        }
+    }
+}
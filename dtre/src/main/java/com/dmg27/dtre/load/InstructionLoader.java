@@ -0,0 +1,214 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class loads trade instructions from comma separated text, one instruction per line.
+ * <p>
+ * The fields of a line are, in order: entity, buy/sell, agreed fx, currency code, instruction date,
+ * settlement date, units and unit price, with dates in the form "01 Jan 2018", for example:
+ * </p>
+ * <pre>
+ * foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25
+ * </pre>
+ * <p>
+ * Blank lines, lines starting with '#' and a first line whose first field is "entity" are ignored.
+ * Lines are read and handed on one at a time so that the input is never held in memory as a whole.
+ * </p>
+ * @author douglasmcgee
+ */
+public class InstructionLoader {
+
+    /**
+     * The field separator.
+     */
+    static final char SEPARATOR = ',';
+
+    /**
+     * The comment line prefix.
+     */
+    static final char COMMENT = '#';
+
+    /**
+     * The number of fields in a line.
+     */
+    static final int FIELD_COUNT = 8;
+
+    /**
+     * The first field of an optional header line.
+     */
+    static final String HEADER = "entity";
+
+    /**
+     * The working week for the loaded instructions.
+     */
+    final WorkingWeek workingWeek;
+
+    /**
+     * Create an instance of the {@link InstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     */
+    public InstructionLoader(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+    }
+
+    /**
+     * Load all the instructions in a file.
+     * @param path The file.
+     * @return The instructions, in file order.
+     * @throws DtreException When the file cannot be read or has a bad line.
+     */
+    public List<Instruction> load(Path path) {
+        List<Instruction> instructions = new ArrayList<>();
+        this.load(path, instructions::add);
+        return instructions;
+    }
+
+    /**
+     * Load the instructions in a file, handing each on as it is read.
+     * @param path The file.
+     * @param consumer The consumer of the instructions, called in file order.
+     * @throws DtreException When the file cannot be read or has a bad line.
+     */
+    public void load(Path path, Consumer<Instruction> consumer) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            this.load(reader, path.toString(), consumer);
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to read trade instructions from \"{0}\"", path), ex);
+        }
+    }
+
+    /**
+     * Load the instructions from a reader, handing each on as it is read.
+     * @param reader The reader.
+     * @param source The name of the source for error messages.
+     * @param consumer The consumer of the instructions, called in input order.
+     * @throws IOException When the reader fails.
+     * @throws DtreException When there is a bad line.
+     */
+    public void load(Reader reader, String source, Consumer<Instruction> consumer) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            ++lineNumber;
+            if (isIgnored(line, lineNumber)) {
+                continue;
+            }
+
+            try {
+                consumer.accept(this.parse(line));
+            } catch (DtreException ex) {
+                throw badLine(source, lineNumber, ex);
+            }
+        }
+    }
+
+    /**
+     * Parse an instruction from a line.
+     * @param line The line.
+     * @return The instruction.
+     * @throws DtreException When the line is bad.
+     */
+    Instruction parse(String line) {
+        String[] fields = new String[FIELD_COUNT];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == SEPARATOR) {
+                if (count == FIELD_COUNT) {
+                    throw badFieldCount();
+                }
+
+                fields[count++] = line.substring(start, i).trim();
+                start = i + 1;
+            }
+        }
+
+        if (count != FIELD_COUNT) {
+            throw badFieldCount();
+        }
+
+        return new Instruction()
+            .entity(fields[0])
+            .buySell(fields[1])
+            .agreedFx(fields[2])
+            .currencyCode(fields[3])
+            .instructionDate(fields[4])
+            .settlementDate(fields[5])
+            .units(parseUnits(fields[6]))
+            .unitPrice(fields[7])
+            .workingWeek(this.workingWeek);
+    }
+
+    /**
+     * Check if a line is a blank, comment or header line.
+     * @param line The line.
+     * @param lineNumber The line number, starting at one.
+     * @return True when the line is to be ignored.
+     */
+    static boolean isIgnored(String line, long lineNumber) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == COMMENT) {
+            return true;
+        }
+
+        return lineNumber == 1
+            && trimmed.regionMatches(true, 0, HEADER, 0, HEADER.length())
+            && (trimmed.length() == HEADER.length() || trimmed.charAt(HEADER.length()) == SEPARATOR
+                || Character.isWhitespace(trimmed.charAt(HEADER.length())));
+    }
+
+    /**
+     * Parse the units field.
+     * @param unitsString The units field.
+     * @return The units.
+     * @throws DtreException When the units are not a number.
+     */
+    static int parseUnits(String unitsString) {
+        try {
+            return Integer.parseInt(unitsString);
+        } catch (NumberFormatException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction units \"{0}\"", unitsString), ex);
+        }
+    }
+
+    /**
+     * @return The exception for a line with the wrong number of fields.
+     */
+    static DtreException badFieldCount() {
+        return new DtreException(MessageFormat.format("there are not {0} comma separated fields", FIELD_COUNT));
+    }
+
+    /**
+     * Create the exception for a bad line.
+     * @param source The name of the source.
+     * @param lineNumber The line number, starting at one.
+     * @param cause The problem with the line.
+     * @return The exception.
+     */
+    static DtreException badLine(String source, long lineNumber, DtreException cause) {
+        return new DtreException(
+            MessageFormat.format("line {0} of \"{1}\" is bad because {2}", String.valueOf(lineNumber), source, cause.getMessage()),
+            cause);
+    }
+}
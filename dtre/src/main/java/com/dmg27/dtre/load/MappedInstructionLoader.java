@@ -0,0 +1,121 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.function.Consumer;
+
+/**
+ * This class loads trade instructions, in the format described for {@link InstructionLoader}, from a memory mapped file.
+ * <p>
+ * The file is mapped a window at a time and the instructions parsed directly from the mapped bytes,
+ * without decoding lines into strings first. Each window ends at the end of a line.
+ * </p>
+ * @author douglasmcgee
+ */
+public class MappedInstructionLoader extends InstructionLoader {
+
+    /**
+     * The default size of the mapped window, which is also the longest line allowed.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    /**
+     * The size of the mapped window.
+     */
+    private final int windowSize;
+
+    /**
+     * Create an instance of the {@link MappedInstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     */
+    public MappedInstructionLoader(WorkingWeek workingWeek) {
+        this(workingWeek, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create an instance of the {@link MappedInstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     * @param windowSize The size of the mapped window, which is also the longest line allowed.
+     */
+    MappedInstructionLoader(WorkingWeek workingWeek, int windowSize) {
+        super(workingWeek);
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Load the instructions in a file, handing each on as it is parsed.
+     * @param path The file.
+     * @param consumer The consumer of the instructions, called in file order.
+     * @throws DtreException When the file cannot be read or has a bad line.
+     */
+    @Override
+    public void load(Path path, Consumer<Instruction> consumer) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long lineNumber = 1;
+            while (position < size) {
+                int length = (int) Math.min(this.windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = length;
+                if (position + length < size) {
+                    end = lastLineEnd(window, length);
+                    if (end < 0) {
+                        throw InstructionLoader.badLine(path.toString(), lineNumber,
+                            new DtreException(MessageFormat.format("it is longer than {0} bytes", String.valueOf(this.windowSize))));
+                    }
+                }
+
+                lineNumber += this.parseWindow(window, end, lineNumber, path.toString(), consumer);
+                position += end;
+            }
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to read trade instructions from \"{0}\"", path), ex);
+        }
+    }
+
+    /**
+     * Parse the lines in a window.
+     * @param window The window.
+     * @param end The index after the end of the last line in the window.
+     * @param firstLineNumber The line number of the first line in the window.
+     * @param source The name of the source for error messages.
+     * @param consumer The consumer of the instructions, called in line order.
+     * @return The number of lines in the window.
+     * @throws DtreException When there is a bad line.
+     */
+    long parseWindow(ByteBuffer window, int end, long firstLineNumber, String source, Consumer<Instruction> consumer) {
+        return new MappedLineParser(this.workingWeek).parseLines(window, 0, end, firstLineNumber, source, consumer);
+    }
+
+    /**
+     * Find the end of the last complete line in a window.
+     * @param window The window.
+     * @param length The length of the window.
+     * @return The index after the last new line, or -1 when there is none.
+     */
+    static int lastLineEnd(ByteBuffer window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.BuySell;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.Money;
+import com.dmg27.dtre.trade.WorkingWeek;
+import com.dmg27.dtre.util.DateCodec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * This class parses instruction lines, as described for {@link InstructionLoader}, directly from the bytes of a buffer.
+ * <p>
+ * Numbers and dates are parsed from the bytes without creating intermediate strings. A field in an unusual,
+ * but possibly valid, form, for example an amount with an exponent, is handed to the string based
+ * {@link Instruction} setter so that exactly the same values are accepted, and rejected, as by the
+ * {@link InstructionLoader}. Month names are the English abbreviations "Jan" to "Dec".
+ * </p>
+ * <p>
+ * An instance reuses a scratch buffer and is not thread safe.
+ * </p>
+ * @author douglasmcgee
+ */
+final class MappedLineParser {
+
+    /**
+     * The most digits parsed directly into a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * The most digits parsed directly into an int.
+     */
+    private static final int MAX_INT_DIGITS = 9;
+
+    /**
+     * The working week for the parsed instructions.
+     */
+    private final WorkingWeek workingWeek;
+
+    /**
+     * Currency code strings, created once, indexed by their three upper case letters.
+     */
+    private final String[] currencyCodes = new String[26 * 26 * 26];
+
+    /**
+     * Scratch buffer for decoding strings.
+     */
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Start of each field of the current line.
+     */
+    private final int[] fieldStart = new int[InstructionLoader.FIELD_COUNT];
+
+    /**
+     * End of each field of the current line.
+     */
+    private final int[] fieldEnd = new int[InstructionLoader.FIELD_COUNT];
+
+    /**
+     * The line number of the line being parsed.
+     */
+    private long lineNumber;
+
+    /**
+     * Create an instance of the {@link MappedLineParser} class.
+     * @param workingWeek The working week for the parsed instructions.
+     */
+    MappedLineParser(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+    }
+
+    /**
+     * Parse the lines in a range of a buffer.
+     * @param buffer The buffer.
+     * @param start The index of the start of the first line.
+     * @param end The index after the end of the last line.
+     * @param firstLineNumber The line number of the first line.
+     * @param source The name of the source for error messages.
+     * @param consumer The consumer of the instructions, called in line order.
+     * @return The number of lines in the range.
+     * @throws DtreException When there is a bad line.
+     */
+    long parseLines(ByteBuffer buffer, int start, int end, long firstLineNumber, String source, Consumer<Instruction> consumer) {
+        this.lineNumber = firstLineNumber;
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                ++lineEnd;
+            }
+
+            if (!this.isIgnored(buffer, lineStart, lineEnd, this.lineNumber)) {
+                try {
+                    consumer.accept(this.parse(buffer, lineStart, lineEnd));
+                } catch (DtreException ex) {
+                    throw InstructionLoader.badLine(source, this.lineNumber, ex);
+                }
+            }
+
+            ++this.lineNumber;
+            lineStart = lineEnd + 1;
+        }
+
+        return this.lineNumber - firstLineNumber;
+    }
+
+    /**
+     * Get the line number of the line being parsed, which is the bad line after {@link #parseLines} fails.
+     * @return The line number.
+     */
+    long getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Parse an instruction from a line.
+     * @param buffer The buffer.
+     * @param start The index of the start of the line.
+     * @param end The index after the end of the line.
+     * @return The instruction.
+     * @throws DtreException When the line is bad.
+     */
+    Instruction parse(ByteBuffer buffer, int start, int end) {
+        int count = 0;
+        int fieldFrom = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == InstructionLoader.SEPARATOR) {
+                if (count == InstructionLoader.FIELD_COUNT) {
+                    throw InstructionLoader.badFieldCount();
+                }
+
+                int from = fieldFrom;
+                int to = i;
+                while (from < to && isWhitespace(buffer.get(from))) {
+                    ++from;
+                }
+                while (to > from && isWhitespace(buffer.get(to - 1))) {
+                    --to;
+                }
+
+                this.fieldStart[count] = from;
+                this.fieldEnd[count++] = to;
+                fieldFrom = i + 1;
+            }
+        }
+
+        if (count != InstructionLoader.FIELD_COUNT) {
+            throw InstructionLoader.badFieldCount();
+        }
+
+        Instruction instruction = new Instruction()
+            .entity(this.decode(buffer, this.fieldStart[0], this.fieldEnd[0]));
+        this.buySell(instruction, buffer, this.fieldStart[1], this.fieldEnd[1]);
+        this.agreedFx(instruction, buffer, this.fieldStart[2], this.fieldEnd[2]);
+        instruction.currencyCode(this.currencyCode(buffer, this.fieldStart[3], this.fieldEnd[3]));
+        this.instructionDate(instruction, buffer, this.fieldStart[4], this.fieldEnd[4]);
+        this.settlementDate(instruction, buffer, this.fieldStart[5], this.fieldEnd[5]);
+        this.units(instruction, buffer, this.fieldStart[6], this.fieldEnd[6]);
+        this.unitPrice(instruction, buffer, this.fieldStart[7], this.fieldEnd[7]);
+        return instruction.workingWeek(this.workingWeek);
+    }
+
+    /**
+     * Check if a line is a blank, comment or header line.
+     * @return True when the line is to be ignored.
+     */
+    private boolean isIgnored(ByteBuffer buffer, int start, int end, long lineNumber) {
+        int first = start;
+        while (first < end && isWhitespace(buffer.get(first))) {
+            ++first;
+        }
+
+        if (first == end || buffer.get(first) == InstructionLoader.COMMENT) {
+            return true;
+        }
+
+        return lineNumber == 1 && InstructionLoader.isIgnored(this.decode(buffer, start, end), lineNumber);
+    }
+
+    private void buySell(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        if (end - start == 1 && buffer.get(start) == 'B') {
+            instruction.buySell(BuySell.B);
+        } else if (end - start == 1 && buffer.get(start) == 'S') {
+            instruction.buySell(BuySell.S);
+        } else {
+            instruction.buySell(this.decode(buffer, start, end));
+        }
+    }
+
+    private void agreedFx(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        Money agreedFx = parseDecimal(buffer, start, end);
+        if (agreedFx != null) {
+            instruction.agreedFx(agreedFx);
+        } else {
+            instruction.agreedFx(this.decode(buffer, start, end));
+        }
+    }
+
+    private void unitPrice(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        Money unitPrice = parseDecimal(buffer, start, end);
+        if (unitPrice != null) {
+            instruction.unitPrice(unitPrice);
+        } else {
+            instruction.unitPrice(this.decode(buffer, start, end));
+        }
+    }
+
+    private void instructionDate(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        long epochDay = DateCodec.parseEpochDay(buffer, start, end);
+        if (epochDay != DateCodec.NO_DATE) {
+            instruction.instructionDate(DateCodec.toDate(epochDay));
+        } else {
+            instruction.instructionDate(this.decode(buffer, start, end));
+        }
+    }
+
+    private void settlementDate(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        long epochDay = DateCodec.parseEpochDay(buffer, start, end);
+        if (epochDay != DateCodec.NO_DATE) {
+            instruction.settlementDate(DateCodec.toDate(epochDay));
+        } else {
+            instruction.settlementDate(this.decode(buffer, start, end));
+        }
+    }
+
+    private void units(Instruction instruction, ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        int units = 0;
+        for (int i = start; i < end && length <= MAX_INT_DIGITS; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                length = 0;
+                break;
+            }
+
+            units = units * 10 + digit;
+        }
+
+        if (length > 0 && length <= MAX_INT_DIGITS) {
+            instruction.units(units);
+        } else {
+            instruction.units(InstructionLoader.parseUnits(this.decode(buffer, start, end)));
+        }
+    }
+
+    /**
+     * Get the currency code string, reusing the string for three upper case letters.
+     * @return The currency code.
+     */
+    private String currencyCode(ByteBuffer buffer, int start, int end) {
+        if (end - start != 3) {
+            return this.decode(buffer, start, end);
+        }
+
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            int letter = buffer.get(i) - 'A';
+            if (letter < 0 || letter >= 26) {
+                return this.decode(buffer, start, end);
+            }
+
+            index = index * 26 + letter;
+        }
+
+        String currencyCode = this.currencyCodes[index];
+        if (currencyCode == null) {
+            currencyCode = this.decode(buffer, start, end);
+            this.currencyCodes[index] = currencyCode;
+        }
+
+        return currencyCode;
+    }
+
+    /**
+     * Parse a plain decimal number, with an optional sign and decimal point.
+     * @return The amount, or null when the field is not a plain decimal of at most 18 digits.
+     */
+    static Money parseDecimal(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            ++i;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return null;
+                }
+
+                unscaled = unscaled * 10 + (b - '0');
+                if (scale >= 0) {
+                    ++scale;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return null;
+            }
+        }
+
+        if (digits == 0) {
+            return null;
+        }
+
+        return Money.of(negative ? -unscaled : unscaled, scale < 0 ? 0 : scale);
+    }
+
+    /**
+     * Decode a range of the buffer as a UTF-8 string.
+     * @return The string.
+     */
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+
+        for (int i = 0; i < length; i++) {
+            this.scratch[i] = buffer.get(start + i);
+        }
+
+        return new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return True for white space and control bytes, as trimmed by {@link String#trim()}.
+     */
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.WorkingWeek;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * This class loads trade instructions from a memory mapped file, parsing chunks of the file concurrently.
+ * <p>
+ * Each mapped window is split into chunks that end at the end of a line, and the chunks are parsed on a
+ * {@link ForkJoinPool} with the configured parallelism. The instructions are then handed on in file order,
+ * so the result is exactly that of the {@link MappedInstructionLoader}, including the line number of the
+ * first bad line.
+ * </p>
+ * @author douglasmcgee
+ */
+public class ParallelInstructionLoader extends MappedInstructionLoader {
+
+    /**
+     * The number of chunks for each thread, to even out the load between threads.
+     */
+    static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * The default smallest chunk worth parsing on its own.
+     */
+    static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The number of threads parsing chunks.
+     */
+    private final int parallelism;
+
+    /**
+     * The smallest chunk worth parsing on its own.
+     */
+    private final int minChunkSize;
+
+    /**
+     * Create an instance of the {@link ParallelInstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     * @param parallelism The number of threads parsing chunks.
+     * @throws DtreException When the parallelism is not positive.
+     */
+    public ParallelInstructionLoader(WorkingWeek workingWeek, int parallelism) {
+        this(workingWeek, parallelism, DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Create an instance of the {@link ParallelInstructionLoader} class.
+     * @param workingWeek The working week for the loaded instructions.
+     * @param parallelism The number of threads parsing chunks.
+     * @param windowSize The size of the mapped window, which is also the longest line allowed.
+     * @param minChunkSize The smallest chunk worth parsing on its own.
+     * @throws DtreException When the parallelism is not positive.
+     */
+    ParallelInstructionLoader(WorkingWeek workingWeek, int parallelism, int windowSize, int minChunkSize) {
+        super(workingWeek, windowSize);
+        if (parallelism <= 0) {
+            throw new DtreException(MessageFormat.format("of the bad number of threads \"{0}\"", String.valueOf(parallelism)));
+        }
+
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Parse the lines in a window, a chunk at a time, in parallel.
+     * @param window The window.
+     * @param end The index after the end of the last line in the window.
+     * @param firstLineNumber The line number of the first line in the window.
+     * @param source The name of the source for error messages.
+     * @param consumer The consumer of the instructions, which is always a {@link ChunkConsumer}.
+     * @return The number of lines in the window.
+     * @throws DtreException When there is a bad line.
+     */
+    @Override
+    long parseWindow(ByteBuffer window, int end, long firstLineNumber, String source, Consumer<Instruction> consumer) {
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            int chunkSize = Math.max(this.minChunkSize, end / (this.parallelism * CHUNKS_PER_THREAD) + 1);
+            int start = 0;
+            while (start < end) {
+                int chunkEnd = nextLineStart(window, Math.min(start + chunkSize, end) - 1, end);
+                // Only the first chunk can start with the header line, the others are numbered from just after it.
+                long chunkFirstLineNumber = start == 0 ? firstLineNumber : firstLineNumber + 1;
+                tasks.add(pool.submit(new Chunk(window, start, chunkEnd, chunkFirstLineNumber, source)));
+                start = chunkEnd;
+            }
+
+            long lineNumber = firstLineNumber;
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = task.join();
+                if (chunk.failure != null) {
+                    throw InstructionLoader.badLine(source, lineNumber + chunk.lines, chunk.failure);
+                }
+
+                chunk.instructions.forEach(consumer);
+                lineNumber += chunk.lines;
+            }
+
+            return lineNumber - firstLineNumber;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Find the start of the line after a position.
+     * @param window The window.
+     * @param position The position.
+     * @param end The end of the last line in the window.
+     * @return The index after the first new line at or after the position, or the end.
+     */
+    static int nextLineStart(ByteBuffer window, int position, int end) {
+        for (int i = position; i < end; i++) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return end;
+    }
+
+    /**
+     * The lines of a window parsed as one task.
+     */
+    private final class Chunk implements Callable<Chunk> {
+
+        private final ByteBuffer window;
+
+        private final int start;
+
+        private final int end;
+
+        private final long firstLineNumber;
+
+        private final String source;
+
+        /**
+         * The instructions parsed.
+         */
+        final List<Instruction> instructions = new ArrayList<>();
+
+        /**
+         * The number of lines parsed, or the number before the bad line.
+         */
+        long lines;
+
+        /**
+         * The problem with the bad line, null when there is no bad line.
+         */
+        DtreException failure;
+
+        Chunk(ByteBuffer window, int start, int end, long firstLineNumber, String source) {
+            this.window = window;
+            this.start = start;
+            this.end = end;
+            this.firstLineNumber = firstLineNumber;
+            this.source = source;
+        }
+
+        @Override
+        public Chunk call() {
+            MappedLineParser parser = new MappedLineParser(ParallelInstructionLoader.this.workingWeek);
+            try {
+                this.lines = parser.parseLines(this.window, this.start, this.end, this.firstLineNumber, this.source, this.instructions::add);
+            } catch (DtreException ex) {
+                this.lines = parser.getLineNumber() - this.firstLineNumber;
+                this.failure = (DtreException) ex.getCause();
+            }
+
+            return this;
+        }
+    }
+}
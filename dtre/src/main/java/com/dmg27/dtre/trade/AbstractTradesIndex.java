@@ -0,0 +1,212 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.util.BoundedHeap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * This class is the base class for secondary indexes of trades keyed on effective settlement date and then
+ * entity, which keep the settled totals for every date and every entity on a date so that report queries
+ * do not rescan the trades.
+ * <p>
+ * {@link TradesIndex} indexes instructions, while {@link StoreTradesIndex} indexes the positions of
+ * instructions in an {@link InstructionStore}, creating instructions only for the trades a query returns.
+ * </p>
+ * @author douglasmcgee
+ */
+abstract class AbstractTradesIndex {
+
+    /**
+     * @return The number of trades indexed.
+     */
+    abstract int size();
+
+    /**
+     * Get the settled totals for a date and an optional entity.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @return The totals, or null when there are no trades for the date and entity.
+     */
+    abstract SettledTotals getTotals(LocalDate date, Optional<String> entity);
+
+    /**
+     * Get the settled totals of the entities with trades on a date.
+     * @param date The effective settlement date.
+     * @return The totals for each entity, in order of the first trade of each entity.
+     */
+    abstract List<? extends SettledTotals> getEntityTotals(LocalDate date);
+
+    /**
+     * @return The effective settlement dates with settled trades, in no particular order.
+     */
+    abstract Stream<LocalDate> getSettledDates();
+
+    /**
+     * Get the trades for a date and an optional entity.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @return The trades, in indexed order.
+     */
+    abstract List<Instruction> getTradesOnAndFor(LocalDate date, Optional<String> entity);
+
+    /**
+     * Get the highest ranked settled trades for a date and an optional entity.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @param limit The most trades to get.
+     * @return The trades, in rank order.
+     */
+    abstract List<Instruction> getTopSettledOnAndFor(LocalDate date, Optional<String> entity, int limit);
+
+    /**
+     * Get the total amount settled for a date and an optional entity.
+     * @param buySell Buy for outgoing, sell for incoming.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @return The total settled amount.
+     */
+    Money getTotalSettledOnAndFor(BuySell buySell, LocalDate date, Optional<String> entity) {
+        SettledTotals totals = this.getTotals(date, entity);
+        if (totals == null) {
+            return Money.ZERO;
+        }
+
+        return buySell == BuySell.S ? totals.incoming.get() : totals.outgoing.get();
+    }
+
+    /**
+     * Get the highest amount settled for a date and an optional entity.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @return The highest settled amount, or zero when nothing has settled.
+     */
+    Money getHighestSettledOnAndFor(LocalDate date, Optional<String> entity) {
+        SettledTotals totals = this.getTotals(date, entity);
+        return totals == null || totals.highest == null ? Money.ZERO : totals.highest;
+    }
+
+    /**
+     * @return The first effective settlement date with settled trades, if any.
+     */
+    Optional<LocalDate> getFirstSettledDate() {
+        return this.getSettledDates().min(Comparator.naturalOrder());
+    }
+
+    /**
+     * @return The last effective settlement date with settled trades, if any.
+     */
+    Optional<LocalDate> getLastSettledDate() {
+        return this.getSettledDates().max(Comparator.naturalOrder());
+    }
+
+    /**
+     * Get the settled totals of the entities with the highest incoming or outgoing totals for a date.
+     * @param buySell Buy for outgoing, sell for incoming.
+     * @param date The effective settlement date.
+     * @param limit The most entities to get.
+     * @return The totals, highest first, and in the order of the entities in the summary for the date on a tie.
+     */
+    List<DailySummary.Totals> getTopEntitiesOn(BuySell buySell, LocalDate date, int limit) {
+        BoundedHeap<DailySummary.Totals> top = new BoundedHeap<>(limit, buySell == BuySell.S
+            ? (a, b) -> b.getIncoming().compareTo(a.getIncoming())
+            : (a, b) -> b.getOutgoing().compareTo(a.getOutgoing()));
+        this.getEntityTotals(date).forEach(totals -> top.offer(new DailySummary.Totals(Optional.of(totals.entity), totals)));
+        return new ArrayList<>(top.toList());
+    }
+
+    /**
+     * Get the summary of the settled totals for a date.
+     * @param date The effective settlement date.
+     * @return The summary.
+     */
+    DailySummary getDailySummary(LocalDate date) {
+        return new DailySummary(date, this.getTotals(date, Optional.empty()), this.getEntityTotals(date));
+    }
+
+    /**
+     * The settled totals for an effective settlement date and an entity, or for all entities.
+     */
+    static class SettledTotals {
+
+        /**
+         * The entity, null for all entities.
+         */
+        final String entity;
+
+        /**
+         * Total settled sells.
+         */
+        final Money.Sum incoming;
+
+        /**
+         * Total settled buys.
+         */
+        final Money.Sum outgoing;
+
+        /**
+         * Highest settled amount, null when nothing has settled.
+         */
+        Money highest;
+
+        /**
+         * Create empty totals.
+         * @param entity The entity, null for all entities.
+         */
+        SettledTotals(String entity) {
+            this.entity = entity;
+            this.incoming = new Money.Sum(Money.SETTLEMENT_SCALE);
+            this.outgoing = new Money.Sum(Money.SETTLEMENT_SCALE);
+        }
+
+        /**
+         * Create a copy of totals.
+         * @param totals The totals.
+         */
+        SettledTotals(SettledTotals totals) {
+            this.entity = totals.entity;
+            this.incoming = new Money.Sum(totals.incoming);
+            this.outgoing = new Money.Sum(totals.outgoing);
+            this.highest = totals.highest;
+        }
+
+        /**
+         * Add an instruction to the totals.
+         * @param instruction The instruction.
+         */
+        void addTotals(Instruction instruction) {
+            this.addTotals(instruction.getBuySell(), instruction.getSettledMoney().orElse(null));
+        }
+
+        /**
+         * Add a trade to the totals.
+         * @param buySell The buy/sell of the trade.
+         * @param settledAmount The settled amount of the trade, null when it is not settled.
+         */
+        void addTotals(BuySell buySell, Money settledAmount) {
+            if (settledAmount == null) {
+                return;
+            }
+
+            if (buySell == BuySell.S) {
+                this.incoming.add(settledAmount);
+            } else {
+                this.outgoing.add(settledAmount);
+            }
+
+            if (this.highest == null || settledAmount.compareTo(this.highest) > 0) {
+                this.highest = settledAmount;
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class stores trade instructions on the heap in parallel primitive arrays, one per field.
+ * <p>
+ * Entities and currency codes are stored as their ids in the symbol tables shared by instructions,
+ * dates as epoch days, and amounts as scaled longs with the scale in a byte, so an instruction takes
+ * around 60 bytes rather than the several hundred bytes of an {@link Instruction} and the objects it
+ * refers to. Amounts that do not fit in a scaled long are kept separately.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class ColumnarInstructionStore extends InstructionStore {
+
+    /**
+     * The initial capacity.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * The flag for a sell.
+     */
+    private static final byte SELL = 1;
+
+    private int size;
+
+    private int[] entityIds = new int[INITIAL_CAPACITY];
+
+    private int[] currencyIds = new int[INITIAL_CAPACITY];
+
+    private byte[] buySells = new byte[INITIAL_CAPACITY];
+
+    private int[] instructionDays = new int[INITIAL_CAPACITY];
+
+    private int[] settlementDays = new int[INITIAL_CAPACITY];
+
+    private int[] effectiveDays = new int[INITIAL_CAPACITY];
+
+    private int[] units = new int[INITIAL_CAPACITY];
+
+    private final MoneyColumn agreedFxs = new MoneyColumn(INITIAL_CAPACITY);
+
+    private final MoneyColumn unitPrices = new MoneyColumn(INITIAL_CAPACITY);
+
+    private final MoneyColumn settledAmounts = new MoneyColumn(INITIAL_CAPACITY);
+
+    /**
+     * Create an instance of the {@link ColumnarInstructionStore} class.
+     * @param workingWeek The working week for the stored instructions.
+     */
+    public ColumnarInstructionStore(WorkingWeek workingWeek) {
+        super(workingWeek);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public ColumnarInstructionStore add(Instruction instruction) {
+        if (this.size == this.entityIds.length) {
+            this.grow();
+        }
+
+        int index = this.size++;
+        this.entityIds[index] = instruction.getEntityId();
+        this.currencyIds[index] = instruction.getCurrencyId();
+        this.buySells[index] = instruction.getBuySell() == BuySell.S ? SELL : 0;
+        this.instructionDays[index] = (int) instruction.getInstructionDate().toEpochDay();
+        this.settlementDays[index] = (int) instruction.getSettlementDate().toEpochDay();
+        this.effectiveDays[index] = (int) instruction.getEffectiveSettlementDate().toEpochDay();
+        this.units[index] = instruction.getUnits();
+        this.agreedFxs.set(index, instruction.getAgreedFxMoney());
+        this.unitPrices.set(index, instruction.getUnitPriceMoney());
+        this.settledAmounts.set(index, instruction.getSettledMoney().orElse(null));
+        return this;
+    }
+
+    /**
+     * Grow the columns to twice their capacity.
+     */
+    private void grow() {
+        int capacity = this.entityIds.length * 2;
+        this.entityIds = Arrays.copyOf(this.entityIds, capacity);
+        this.currencyIds = Arrays.copyOf(this.currencyIds, capacity);
+        this.buySells = Arrays.copyOf(this.buySells, capacity);
+        this.instructionDays = Arrays.copyOf(this.instructionDays, capacity);
+        this.settlementDays = Arrays.copyOf(this.settlementDays, capacity);
+        this.effectiveDays = Arrays.copyOf(this.effectiveDays, capacity);
+        this.units = Arrays.copyOf(this.units, capacity);
+        this.agreedFxs.grow(capacity);
+        this.unitPrices.grow(capacity);
+        this.settledAmounts.grow(capacity);
+    }
+
+    @Override
+    int getEntityId(int index) {
+        return this.entityIds[index];
+    }
+
+    @Override
+    BuySell getBuySell(int index) {
+        return this.buySells[index] == SELL ? BuySell.S : BuySell.B;
+    }
+
+    @Override
+    Money getAgreedFx(int index) {
+        return this.agreedFxs.get(index);
+    }
+
+    @Override
+    int getCurrencyId(int index) {
+        return this.currencyIds[index];
+    }
+
+    @Override
+    long getInstructionEpochDay(int index) {
+        return this.instructionDays[index];
+    }
+
+    @Override
+    long getSettlementEpochDay(int index) {
+        return this.settlementDays[index];
+    }
+
+    @Override
+    long getEffectiveEpochDay(int index) {
+        return this.effectiveDays[index];
+    }
+
+    @Override
+    int getUnits(int index) {
+        return this.units[index];
+    }
+
+    @Override
+    Money getUnitPrice(int index) {
+        return this.unitPrices.get(index);
+    }
+
+    @Override
+    Money getSettledAmount(int index) {
+        return this.settledAmounts.get(index);
+    }
+
+    @Override
+    boolean isSettled(int index) {
+        return this.settledAmounts.isSet(index);
+    }
+
+    @Override
+    void setSettledAmount(int index, Money settledAmount) {
+        this.settledAmounts.set(index, settledAmount);
+    }
+
+    @Override
+    void settle(int index, long today) {
+        if (this.effectiveDays[index] > today) {
+            return;
+        }
+
+        // Multiply the scaled longs directly, creating amounts only when the product overflows.
+        long settled = this.agreedFxs.isCompact(index) && this.unitPrices.isCompact(index)
+            ? Money.multiplyUnscaled(this.unitPrices.unscaled[index], this.unitPrices.scales[index],
+                this.agreedFxs.unscaled[index], this.agreedFxs.scales[index], this.units[index], Money.SETTLEMENT_SCALE)
+            : Money.OVERFLOW;
+        if (settled == Money.OVERFLOW) {
+            super.settle(index, today);
+        } else {
+            this.settledAmounts.set(index, settled, Money.SETTLEMENT_SCALE);
+        }
+    }
+
+    @Override
+    int compareRank(int index, int otherIndex) {
+        MoneyColumn settled = this.settledAmounts;
+        if (settled.isCompact(index) && settled.isCompact(otherIndex) && settled.scales[index] == settled.scales[otherIndex]) {
+            return Long.compare(settled.unscaled[otherIndex], settled.unscaled[index]);
+        }
+
+        return super.compareRank(index, otherIndex);
+    }
+
+    /**
+     * A column of amounts as scaled longs, with amounts that do not fit kept separately.
+     */
+    private static final class MoneyColumn {
+
+        /**
+         * The scale of a missing amount.
+         */
+        private static final byte NONE = Byte.MIN_VALUE;
+
+        /**
+         * The scale of an amount that does not fit in a scaled long.
+         */
+        private static final byte BIG = Byte.MIN_VALUE + 1;
+
+        long[] unscaled;
+
+        byte[] scales;
+
+        /**
+         * The amounts that do not fit in a scaled long, keyed on position.
+         */
+        private final Map<Integer, Money> bigs = new HashMap<>();
+
+        MoneyColumn(int capacity) {
+            this.unscaled = new long[capacity];
+            this.scales = new byte[capacity];
+            Arrays.fill(this.scales, NONE);
+        }
+
+        void grow(int capacity) {
+            int oldCapacity = this.scales.length;
+            this.unscaled = Arrays.copyOf(this.unscaled, capacity);
+            this.scales = Arrays.copyOf(this.scales, capacity);
+            Arrays.fill(this.scales, oldCapacity, capacity, NONE);
+        }
+
+        boolean isSet(int index) {
+            return this.scales[index] != NONE;
+        }
+
+        boolean isCompact(int index) {
+            return this.scales[index] >= 0;
+        }
+
+        Money get(int index) {
+            byte scale = this.scales[index];
+            if (scale == NONE) {
+                return null;
+            }
+
+            return scale == BIG ? this.bigs.get(index) : Money.of(this.unscaled[index], scale);
+        }
+
+        void set(int index, Money amount) {
+            if (this.scales[index] == BIG) {
+                this.bigs.remove(index);
+            }
+
+            if (amount == null) {
+                this.scales[index] = NONE;
+            } else if (amount.isCompact()) {
+                this.unscaled[index] = amount.getUnscaled();
+                this.scales[index] = (byte) amount.getScale();
+            } else {
+                this.scales[index] = BIG;
+                this.bigs.put(index, amount);
+            }
+        }
+
+        void set(int index, long unscaledAmount, int scale) {
+            if (this.scales[index] == BIG) {
+                this.bigs.remove(index);
+            }
+
+            this.unscaled[index] = unscaledAmount;
+            this.scales[index] = (byte) scale;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents trades that many threads may add to while others report on them, without locks.
+ * <p>
+ * The trades are held in a {@link TradesIndex} that is never changed once published. Adding instructions
+ * settles and ranks them, then copies the index, sharing every bucket except those for the effective
+ * settlement dates and entities the instructions fall in, adds them to the copy and publishes it with a
+ * compare and set, trying again against the newer index when another thread published first. So a
+ * writer copies only the segments of the book it changes, and a reader always sees a consistent book
+ * from a single volatile read.
+ * </p>
+ * <p>
+ * The queries read the latest book. A report that makes several queries should take a {@link #snapshot()}
+ * and query that, so that every query sees the same book.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class ConcurrentTrades {
+
+    /**
+     * The latest published index of the trades.
+     */
+    private final AtomicReference<TradesIndex> index = new AtomicReference<>(new TradesIndex(Collections.emptyList(), true));
+
+    /**
+     * The id for the next instruction added.
+     */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Add an instruction to the trades.
+     * @param instruction The instruction.
+     * @return These trades.
+     * @see #add(Collection)
+     */
+    public ConcurrentTrades add(Instruction instruction) {
+        return this.add(Collections.singletonList(instruction));
+    }
+
+    /**
+     * Add instructions to the trades, settling them. The instructions are ranked after the trades ranked
+     * with or above them, and become visible to readers together. Ties are ranked in order of id, so the
+     * ranking is the same whichever of two concurrent additions is published first.
+     * @param instructions The instructions, in order of arrival.
+     * @return These trades.
+     */
+    public ConcurrentTrades add(Collection<Instruction> instructions) {
+        List<Instruction> added = new ArrayList<>(instructions);
+        int id = this.nextId.getAndAdd(added.size());
+        for (Instruction instruction : added) {
+            instruction.id(id++);
+            instruction.settle();
+        }
+
+        TradesIndex current;
+        TradesIndex next;
+        do {
+            current = this.index.get();
+            next = new TradesIndex(current);
+            for (Instruction instruction : added) {
+                next.add(instruction);
+            }
+        } while (!this.index.compareAndSet(current, next));
+
+        return this;
+    }
+
+    /**
+     * Take a snapshot of the trades, which is not changed by later additions. The snapshot shares the
+     * book of these trades, so taking it is cheap, and instructions added to it are not added here.
+     * @return The snapshot, settled and ranked.
+     */
+    public Trades snapshot() {
+        return new Trades().trades(this.index.get(), null, true, this.nextId.get());
+    }
+
+    /**
+     * @return The number of trades.
+     */
+    public int size() {
+        return this.index.get().size();
+    }
+
+    public List<Instruction> getTradesOn(LocalDate date) {
+        return this.getTradesOnAndFor(date, Optional.empty());
+    }
+
+    public List<Instruction> getTradesOnAndFor(LocalDate date, Optional<String> entity) {
+        return this.index.get().getTradesOnAndFor(date, entity);
+    }
+
+    public Money getSettledOnAndFor(BuySell buySell, LocalDate date, Optional<String> entity) {
+        return this.index.get().getTotalSettledOnAndFor(buySell, date, entity);
+    }
+
+    public Money getHighestSettledOnAndFor(LocalDate date, String entity) {
+        return this.index.get().getHighestSettledOnAndFor(date, Optional.of(entity));
+    }
+
+    public DailySummary getDailySummary(LocalDate date) {
+        return this.index.get().getDailySummary(date);
+    }
+}
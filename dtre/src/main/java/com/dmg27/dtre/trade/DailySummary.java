@@ -0,0 +1,148 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * This class represents the settled totals for an effective settlement date, for each entity and for the day.
+ * <p>
+ * The totals are those aggregated in a single pass when the trades are indexed, so a report reads
+ * each day's totals once rather than querying the trades for every entity.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class DailySummary {
+
+    /**
+     * The effective settlement date.
+     */
+    private final LocalDate date;
+
+    /**
+     * The totals for all entities.
+     */
+    private final Totals totals;
+
+    /**
+     * The totals for each entity, in rank order.
+     */
+    private final List<Totals> entityTotals;
+
+    /**
+     * Create an instance of the {@link DailySummary} class.
+     * @param date The effective settlement date.
+     * @param day The totals for the date, or null when there are no trades on the date.
+     * @param entities The totals for each entity with trades on the date.
+     */
+    DailySummary(LocalDate date, AbstractTradesIndex.SettledTotals day, List<? extends AbstractTradesIndex.SettledTotals> entities) {
+        this.date = date;
+        if (day == null) {
+            this.totals = new Totals(Optional.empty(), null);
+            this.entityTotals = Collections.emptyList();
+            return;
+        }
+
+        this.totals = new Totals(Optional.empty(), day);
+        List<Totals> entityTotals = new ArrayList<>(entities.size());
+        entities.forEach(totals -> entityTotals.add(new Totals(Optional.of(totals.entity), totals)));
+        this.entityTotals = Collections.unmodifiableList(entityTotals);
+    }
+
+    /**
+     * @return The effective settlement date.
+     */
+    public LocalDate getDate() {
+        return this.date;
+    }
+
+    /**
+     * @return The totals for all entities.
+     */
+    public Totals getTotals() {
+        return this.totals;
+    }
+
+    /**
+     * @return The totals for each entity with trades on the date, in rank order, that is by first appearance
+     * in the trades, which are ranked by settled amount once settled.
+     */
+    public List<Totals> getEntityTotals() {
+        return this.entityTotals;
+    }
+
+    /**
+     * The settled totals for an entity, or for all entities, on a date.
+     */
+    final public static class Totals {
+
+        /**
+         * The entity, empty for all entities.
+         */
+        private final Optional<String> entity;
+
+        /**
+         * Total settled sells.
+         */
+        private final Money incoming;
+
+        /**
+         * Total settled buys.
+         */
+        private final Money outgoing;
+
+        /**
+         * Highest settled amount.
+         */
+        private final Money highest;
+
+        /**
+         * Create an instance of the {@link Totals} class.
+         * @param entity The entity, empty for all entities.
+         * @param bucket The totals of the trades, or null when there are no trades.
+         */
+        Totals(Optional<String> entity, AbstractTradesIndex.SettledTotals bucket) {
+            this.entity = entity;
+            this.incoming = bucket == null ? Money.ZERO : bucket.incoming.get();
+            this.outgoing = bucket == null ? Money.ZERO : bucket.outgoing.get();
+            this.highest = bucket == null || bucket.highest == null ? Money.ZERO : bucket.highest;
+        }
+
+        /**
+         * @return The entity, empty for all entities.
+         */
+        public Optional<String> getEntity() {
+            return this.entity;
+        }
+
+        /**
+         * @return The total settled sells.
+         */
+        public Money getIncoming() {
+            return this.incoming;
+        }
+
+        /**
+         * @return The total settled buys.
+         */
+        public Money getOutgoing() {
+            return this.outgoing;
+        }
+
+        /**
+         * @return The highest settled amount, zero when nothing has settled.
+         */
+        public Money getHighest() {
+            return this.highest;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.util.Util;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents the market holidays of currencies, the days other than weekends with no settlement.
+ * <p>
+ * Use {@link WorkingWeek#withHolidays(HolidayCalendar, int, int)} to skip the holidays when settling.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class HolidayCalendar {
+
+    /**
+     * The holidays keyed on currency.
+     */
+    private final Map<String, Set<LocalDate>> holidays = new HashMap<>();
+
+    /**
+     * Add a holiday for a currency.
+     * @param currencyCode The currency code.
+     * @param date The date of the holiday.
+     * @return This calendar.
+     * @throws DtreException When there is a problem with the currency code or the date is null.
+     */
+    public HolidayCalendar holiday(String currencyCode, LocalDate date) {
+        Util.validateCurrencyCode(currencyCode);
+        if (date == null) {
+            throw new DtreException("null HolidayCalendar holiday date");
+        }
+
+        this.holidays.computeIfAbsent(currencyCode, c -> new HashSet<>()).add(date);
+        return this;
+    }
+
+    /**
+     * Get the holidays for a currency.
+     * @param currencyCode The currency code.
+     * @return The holidays, empty when the currency has none.
+     */
+    public Set<LocalDate> getHolidays(String currencyCode) {
+        Set<LocalDate> currencyHolidays = this.holidays.get(currencyCode);
+        return currencyHolidays == null ? Collections.emptySet() : Collections.unmodifiableSet(currencyHolidays);
+    }
+
+    /**
+     * Get the currencies with holidays.
+     * @return The currency codes.
+     */
+    public Set<String> getCurrencyCodes() {
+        return Collections.unmodifiableSet(this.holidays.keySet());
+    }
+
+    /**
+     * Get the year of the earliest holiday.
+     * @return The year, or the current year when there are no holidays.
+     */
+    public int getFirstYear() {
+        return this.holidays.values().stream()
+            .flatMap(Set::stream)
+            .mapToInt(LocalDate::getYear)
+            .min()
+            .orElse(LocalDate.now().getYear());
+    }
+
+    /**
+     * Get the year of the latest holiday.
+     * @return The year, or the current year when there are no holidays.
+     */
+    public int getLastYear() {
+        return this.holidays.values().stream()
+            .flatMap(Set::stream)
+            .mapToInt(LocalDate::getYear)
+            .max()
+            .orElse(LocalDate.now().getYear());
+    }
+}
@@ -0,0 +1,389 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.util.DateCodec;
+import com.dmg27.dtre.util.SymbolTable;
+import com.dmg27.dtre.util.Util;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * This class represents a trade instruction.
+ * @author douglasmcgee
+ */
+final public class Instruction implements Comparable {
+    
+    /**
+     * The entities of all instructions, so that each entity is held once and has an id.
+     */
+    static final SymbolTable ENTITIES = new SymbolTable();
+    
+    /**
+     * The order of ranked trades, by {@link #compareTo(Object)} and then in order of id, so that trades
+     * ranked together keep their order of arrival however they were added.
+     */
+    static final Comparator<Instruction> RANKING = (a, b) -> {
+        int compare = a.compareTo(b);
+        return compare != 0 ? compare : Integer.compare(a.id, b.id);
+    };
+    
+    /**
+     * The order of trades that are not ranked, their order of arrival.
+     */
+    static final Comparator<Instruction> ARRIVAL = (a, b) -> Integer.compare(a.id, b.id);
+    
+    private String entity;
+    
+    private int entityId = SymbolTable.NO_ID;
+    
+    private BuySell buySell;
+    
+    private Money agreedFx;
+    
+    private String currencyCode;
+    
+    private int currencyId = Util.NO_CURRENCY_ID;
+    
+    private LocalDate instructionDate;
+    
+    private LocalDate settlementDate;
+    
+    private int units;
+    
+    private Money unitPrice;
+    
+    private Clock clock = Clock.systemUTC();
+    
+    private Optional<Money> settledAmount = Optional.empty();
+    
+    private WorkingWeek workingWeek;
+    
+    /**
+     * The effective settlement date, null until calculated and again when
+     * the settlement date, currency code or working week changes.
+     */
+    private LocalDate effectiveSettlementDate;
+    
+    static final int NO_ID = -1;
+    
+    private int id = NO_ID;
+    
+    public Instruction id(int id) {
+        this.id = id;
+        return this;
+    }
+    
+    int getId() {
+        return this.id;
+    }
+    
+    public Instruction entity(String entity) {
+        if (entity == null) {
+            throw new DtreException("null Instruction entity");
+        }
+        
+        this.entityId = ENTITIES.id(entity);
+        this.entity = ENTITIES.symbol(this.entityId);
+        return this;
+    }
+
+    /**
+     * Set the entity by its id in {@link #ENTITIES}, for an id already known to be valid, for example one
+     * read from an {@link InstructionStore}.
+     * @param entityId The id of the entity.
+     * @return This instruction.
+     */
+    Instruction entityId(int entityId) {
+        this.entityId = entityId;
+        this.entity = ENTITIES.symbol(entityId);
+        return this;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+    
+    /**
+     * @return The id of the entity in {@link #ENTITIES}.
+     */
+    int getEntityId() {
+        return this.entityId;
+    }
+    
+    public Instruction buySell(String value) {
+        try {
+            this.buySell = BuySell.valueOf(value);
+            return this;
+        } catch (IllegalArgumentException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction buy/sell value \"{0}\"", value), ex);
+        }
+    }
+    
+    public Instruction buySell(BuySell buySell) {
+        this.buySell = buySell;
+        return this;
+    }
+
+    public BuySell getBuySell() {
+        return buySell;
+    }
+    
+    public Instruction agreedFx(String agreedFxString) {
+        try {
+            this.agreedFx = Money.parse(agreedFxString);
+            return this;
+        } catch (NumberFormatException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction agreedFx value \"{0}\"", agreedFxString), ex);
+        }
+    }
+    
+    public Instruction agreedFx(Money agreedFx) {
+        this.agreedFx = agreedFx;
+        return this;
+    }
+
+    BigDecimal getAgreedFx() {
+        return agreedFx == null ? null : agreedFx.toBigDecimal();
+    }
+    
+    public Money getAgreedFxMoney() {
+        return this.agreedFx;
+    }
+    
+    public Instruction currencyCode(String currencyCode) {
+        this.currencyId = Util.currencyId(currencyCode);
+        this.currencyCode = Util.currencyCode(this.currencyId);
+        this.effectiveSettlementDate = null;
+        return this;
+    }
+
+    /**
+     * Set the currency code by its id, for an id already known to be valid, for example one read from an
+     * {@link InstructionStore}.
+     * @param currencyId The id of the currency, as given by {@link Util#currencyId(String)}.
+     * @return This instruction.
+     */
+    Instruction currencyId(int currencyId) {
+        this.currencyId = currencyId;
+        this.currencyCode = Util.currencyCode(currencyId);
+        this.effectiveSettlementDate = null;
+        return this;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+    
+    /**
+     * @return The id of the currency, as given by {@link Util#currencyId(String)}.
+     */
+    int getCurrencyId() {
+        return this.currencyId;
+    }
+    
+    public Instruction instructionDate(String dateString) {
+        try {
+            this.instructionDate = DateCodec.parse(dateString);
+            return this;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction instruction date \"{0}\"", dateString), ex);
+        }
+    }
+    
+    public Instruction instructionDate(LocalDate date) {
+        this.instructionDate = date;
+        return this;
+    }
+
+    public LocalDate getInstructionDate() {
+        return instructionDate;
+    }
+    
+    public Instruction settlementDate(String dateString) {
+        try {
+            this.settlementDate = DateCodec.parse(dateString);
+            this.effectiveSettlementDate = null;
+            return this;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction settlement date \"{0}\"", dateString), ex);
+        }
+    }
+    
+    public Instruction settlementDate(LocalDate date) {
+        this.settlementDate = date;
+        this.effectiveSettlementDate = null;
+        return this;
+    }
+
+    public LocalDate getSettlementDate() {
+        return this.settlementDate;
+    }
+    
+    public Instruction units(int units) {
+        if (units <= 0) {
+            throw new DtreException(MessageFormat.format("bad Instruction units \"{0}\"", units));
+        }
+        
+        this.units = units;
+        return this;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+    
+    public Instruction unitPrice(String unitPriceString) {
+        try {
+            this.unitPrice = Money.parse(unitPriceString);
+            return this;
+        } catch (NumberFormatException ex) {
+            throw new DtreException(MessageFormat.format("bad Instruction unit price value \"{0}\"", unitPriceString), ex);
+        }
+    }
+    
+    public Instruction unitPrice(Money unitPrice) {
+        this.unitPrice = unitPrice;
+        return this;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice == null ? null : unitPrice.toBigDecimal();
+    }
+    
+    public Money getUnitPriceMoney() {
+        return this.unitPrice;
+    }
+    
+    public Instruction clock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+    
+    public Instruction workingWeek(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+        this.effectiveSettlementDate = null;
+        return this;
+    }
+    
+    public void settle() {
+        if (!this.isSettleable()) {
+            return;
+        }
+        
+        this.settledAmount = Optional.of(this.calculateSettlementAmount());
+    }
+
+    /**
+     * Restore the settled amount of an instruction settled elsewhere, for example in an {@link InstructionStore}.
+     * @param settledAmount The settled amount, null when not settled.
+     * @return This instruction.
+     */
+    Instruction settledAmount(Money settledAmount) {
+        this.settledAmount = Optional.ofNullable(settledAmount);
+        return this;
+    }
+    
+    public Optional<BigDecimal> getSettledAmount() {
+        return this.settledAmount.map(Money::toBigDecimal);
+    }
+    
+    public Optional<Money> getSettledMoney() {
+        return this.settledAmount;
+    }
+    
+    public boolean isSettleable() {
+        LocalDate effectiveSettlementDate = this.getEffectiveSettlementDate();
+        LocalDate now = LocalDate.now(this.clock);
+        return !effectiveSettlementDate.isAfter(now);
+    }
+    
+    /**
+     * Restore the effective settlement date already calculated elsewhere, for example in an {@link InstructionStore}.
+     * It is calculated again when the settlement date, currency code or working week is set.
+     * @param effectiveSettlementDate The effective settlement date.
+     * @return This instruction.
+     */
+    Instruction effectiveSettlementDate(LocalDate effectiveSettlementDate) {
+        this.effectiveSettlementDate = effectiveSettlementDate;
+        return this;
+    }
+    
+    public LocalDate getEffectiveSettlementDate() {
+        if (this.effectiveSettlementDate == null) {
+            this.effectiveSettlementDate = this.workingWeek.getWorkingDate(this.currencyId, this.settlementDate);
+        }
+        
+        return this.effectiveSettlementDate;
+    }
+    
+    Money calculateSettlementAmount() {
+        Money amount = this.unitPrice.multiply(this.agreedFx, this.units, Money.SETTLEMENT_SCALE);
+        return amount;
+    }
+    
+    public boolean isSettled() {
+        return this.settledAmount.isPresent();
+    }
+
+    @Override
+    public int compareTo(Object o) {
+        Instruction other = (Instruction) o;
+        if (!this.isSettled() && other.isSettled()) {
+            return 1;
+        }
+        
+        if (!this.isSettled() && !other.isSettled()) {
+            return 0;
+        }
+        
+        if (this.isSettled() && !other.isSettled()) {
+            return -1;
+        }
+        
+        return other.getSettledMoney().get().compareTo(this.getSettledMoney().get());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 89 * hash + Objects.hashCode(this.entity);
+        hash = 89 * hash + Objects.hashCode(this.currencyCode);
+        hash = 89 * hash + this.id;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Instruction other = (Instruction) obj;
+        if (this.id == NO_ID && other.id == NO_ID) {
+            return false;
+        }
+        if (this.id != other.id) {
+            return false;
+        }
+        return true;
+    }
+    
+}
@@ -0,0 +1,384 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.util.Util;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+/**
+ * This class is the base class for compact stores of trade instructions, an alternative to
+ * holding each instruction as an {@link Instruction} object.
+ * <p>
+ * Instructions are added in order and addressed by their position, which is also their id. A store is
+ * settled in place by {@link #settle()}, without creating instructions, and read either through a
+ * reusable {@link Row} or through {@link #asList()}, which creates an {@link Instruction} for each
+ * element as it is read. {@link Trades#trades(InstructionStore)} uses a store as the backing for trades.
+ * </p>
+ * <p>
+ * A store is not thread safe.
+ * </p>
+ * @author douglasmcgee
+ */
+abstract public class InstructionStore {
+
+    /**
+     * The working week for the stored instructions.
+     */
+    final WorkingWeek workingWeek;
+
+    /**
+     * The clock for settlement.
+     */
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Create an instance of a subclass of {@link InstructionStore}.
+     * @param workingWeek The working week for the stored instructions.
+     */
+    InstructionStore(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+    }
+
+    /**
+     * Set the clock for settlement.
+     * @param clock The clock.
+     * @return This store.
+     */
+    public InstructionStore clock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * @return The clock for settlement.
+     */
+    Clock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * @return The number of stored instructions.
+     */
+    public abstract int size();
+
+    /**
+     * Add an instruction, including its settled amount if it is settled.
+     * @param instruction The instruction.
+     * @return This store.
+     */
+    public abstract InstructionStore add(Instruction instruction);
+
+    /**
+     * Get the entity of an instruction as its id in {@link Instruction#ENTITIES}.
+     * @param index The position of the instruction.
+     * @return The id of the entity.
+     */
+    abstract int getEntityId(int index);
+
+    String getEntity(int index) {
+        return Instruction.ENTITIES.symbol(this.getEntityId(index));
+    }
+
+    abstract BuySell getBuySell(int index);
+
+    abstract Money getAgreedFx(int index);
+
+    /**
+     * Get the currency of an instruction as its id.
+     * @param index The position of the instruction.
+     * @return The id of the currency, as given by {@link Util#currencyId(String)}.
+     */
+    abstract int getCurrencyId(int index);
+
+    String getCurrencyCode(int index) {
+        return Util.currencyCode(this.getCurrencyId(index));
+    }
+
+    abstract long getInstructionEpochDay(int index);
+
+    abstract long getSettlementEpochDay(int index);
+
+    abstract long getEffectiveEpochDay(int index);
+
+    abstract int getUnits(int index);
+
+    abstract Money getUnitPrice(int index);
+
+    /**
+     * Get the settled amount of an instruction.
+     * @param index The position of the instruction.
+     * @return The settled amount, or null when not settled.
+     */
+    abstract Money getSettledAmount(int index);
+
+    /**
+     * Check if an instruction is settled, without creating its settled amount.
+     * @param index The position of the instruction.
+     * @return True when the instruction is settled.
+     */
+    boolean isSettled(int index) {
+        return this.getSettledAmount(index) != null;
+    }
+
+    /**
+     * Set the settled amount of an instruction.
+     * @param index The position of the instruction.
+     * @param settledAmount The settled amount.
+     */
+    abstract void setSettledAmount(int index, Money settledAmount);
+
+    /**
+     * Settle an instruction when it is settleable, calculating its settled amount.
+     * @param index The position of the instruction.
+     * @param today The epoch day of today.
+     */
+    void settle(int index, long today) {
+        if (this.getEffectiveEpochDay(index) <= today) {
+            this.setSettledAmount(index,
+                this.getUnitPrice(index).multiply(this.getAgreedFx(index), this.getUnits(index), Money.SETTLEMENT_SCALE));
+        }
+    }
+
+    /**
+     * Compare the rank of two instructions as {@link Instruction#compareTo(Object)} does, settled
+     * before unsettled and then by settled amount, highest first.
+     * @param index The position of an instruction.
+     * @param otherIndex The position of the other instruction.
+     * @return Negative, zero or positive as the instruction ranks before, with or after the other.
+     */
+    int compareRank(int index, int otherIndex) {
+        Money settledAmount = this.getSettledAmount(index);
+        Money otherSettledAmount = this.getSettledAmount(otherIndex);
+        if (settledAmount == null || otherSettledAmount == null) {
+            return (settledAmount == null ? 1 : 0) - (otherSettledAmount == null ? 1 : 0);
+        }
+
+        return otherSettledAmount.compareTo(settledAmount);
+    }
+
+    /**
+     * Settle the settleable instructions and rank all of them.
+     * @return The positions of the instructions in rank order, the same order as sorting the
+     * settled instructions, which is stable.
+     */
+    public int[] settle() {
+        this.settleWithoutRanking();
+        int size = this.size();
+        int[] ranked = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = i;
+        }
+
+        this.rank(ranked, new int[size], 0, size);
+        return ranked;
+    }
+
+    /**
+     * Settle the settleable instructions, leaving them in stored order.
+     */
+    public void settleWithoutRanking() {
+        long today = LocalDate.now(this.clock).toEpochDay();
+        int size = this.size();
+        for (int i = 0; i < size; i++) {
+            this.settle(i, today);
+        }
+    }
+
+    /**
+     * Sort a range of positions into rank order with a stable merge sort.
+     * @param positions The positions.
+     * @param scratch Scratch space for merging, the same size as the positions.
+     * @param from The start of the range.
+     * @param to The end of the range.
+     */
+    private void rank(int[] positions, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        this.rank(positions, scratch, from, mid);
+        this.rank(positions, scratch, mid, to);
+        if (this.compareRank(positions[mid - 1], positions[mid]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(positions, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < mid && this.compareRank(scratch[left], scratch[right]) <= 0)) {
+                positions[i] = scratch[left++];
+            } else {
+                positions[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Create the instruction stored at a position. The entity and currency are set from their ids, which
+     * were checked when the instruction was added, rather than looked up and checked again.
+     * @param index The position, which becomes the id of the instruction.
+     * @return A new instruction.
+     */
+    public Instruction get(int index) {
+        return new Instruction()
+            .id(index)
+            .entityId(this.getEntityId(index))
+            .buySell(this.getBuySell(index))
+            .agreedFx(this.getAgreedFx(index))
+            .currencyId(this.getCurrencyId(index))
+            .instructionDate(LocalDate.ofEpochDay(this.getInstructionEpochDay(index)))
+            .settlementDate(LocalDate.ofEpochDay(this.getSettlementEpochDay(index)))
+            .units(this.getUnits(index))
+            .unitPrice(this.getUnitPrice(index))
+            .clock(this.clock)
+            .workingWeek(this.workingWeek)
+            .effectiveSettlementDate(LocalDate.ofEpochDay(this.getEffectiveEpochDay(index)))
+            .settledAmount(this.getSettledAmount(index));
+    }
+
+    /**
+     * @return A list view of the store in stored order, creating an instruction for each element read.
+     */
+    public List<Instruction> asList() {
+        return new StoreList(null);
+    }
+
+    /**
+     * Get a list view of the store in an order.
+     * @param order The positions of the instructions in list order.
+     * @return The list view, creating an instruction for each element read.
+     */
+    public List<Instruction> asList(int[] order) {
+        return new StoreList(order);
+    }
+
+    /**
+     * Get a reusable view of the instruction at a position.
+     * @param index The position.
+     * @return The view.
+     */
+    public Row row(int index) {
+        return new Row().at(index);
+    }
+
+    /**
+     * A list view of the store.
+     */
+    private final class StoreList extends AbstractList<Instruction> implements RandomAccess {
+
+        /**
+         * The positions in list order, null for stored order.
+         */
+        private final int[] order;
+
+        StoreList(int[] order) {
+            this.order = order;
+        }
+
+        @Override
+        public Instruction get(int index) {
+            return InstructionStore.this.get(this.order == null ? index : this.order[index]);
+        }
+
+        @Override
+        public int size() {
+            return this.order == null ? InstructionStore.this.size() : this.order.length;
+        }
+    }
+
+    /**
+     * A reusable view of an instruction in the store, with the getters of {@link Instruction},
+     * that is moved from instruction to instruction with {@link #at(int)} rather than creating instructions.
+     */
+    final public class Row {
+
+        /**
+         * The position of the instruction.
+         */
+        private int index;
+
+        /**
+         * Move the view to an instruction.
+         * @param index The position of the instruction.
+         * @return This view.
+         * @throws IndexOutOfBoundsException When the position is out of range.
+         */
+        public Row at(int index) {
+            if (index < 0 || index >= InstructionStore.this.size()) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+
+            this.index = index;
+            return this;
+        }
+
+        public int getId() {
+            return this.index;
+        }
+
+        public String getEntity() {
+            return InstructionStore.this.getEntity(this.index);
+        }
+
+        public BuySell getBuySell() {
+            return InstructionStore.this.getBuySell(this.index);
+        }
+
+        public BigDecimal getAgreedFx() {
+            return InstructionStore.this.getAgreedFx(this.index).toBigDecimal();
+        }
+
+        public String getCurrencyCode() {
+            return InstructionStore.this.getCurrencyCode(this.index);
+        }
+
+        public LocalDate getInstructionDate() {
+            return LocalDate.ofEpochDay(InstructionStore.this.getInstructionEpochDay(this.index));
+        }
+
+        public LocalDate getSettlementDate() {
+            return LocalDate.ofEpochDay(InstructionStore.this.getSettlementEpochDay(this.index));
+        }
+
+        public LocalDate getEffectiveSettlementDate() {
+            return LocalDate.ofEpochDay(InstructionStore.this.getEffectiveEpochDay(this.index));
+        }
+
+        public int getUnits() {
+            return InstructionStore.this.getUnits(this.index);
+        }
+
+        public BigDecimal getUnitPrice() {
+            return InstructionStore.this.getUnitPrice(this.index).toBigDecimal();
+        }
+
+        public Optional<BigDecimal> getSettledAmount() {
+            return this.getSettledMoney().map(Money::toBigDecimal);
+        }
+
+        public Optional<Money> getSettledMoney() {
+            return Optional.ofNullable(InstructionStore.this.getSettledAmount(this.index));
+        }
+
+        public boolean isSettled() {
+            return InstructionStore.this.isSettled(this.index);
+        }
+
+        public boolean isSettleable() {
+            return InstructionStore.this.getEffectiveEpochDay(this.index) <= LocalDate.now(InstructionStore.this.clock).toEpochDay();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * This class represents an immutable amount of money as a scaled long.
+ * <p>
+ * The value of an amount is the unscaled value multiplied by ten to the power of minus the scale,
+ * exactly as for {@link BigDecimal}. Arithmetic is done on longs and falls back to {@link BigDecimal}
+ * when a result would overflow, so results are always identical to the equivalent {@link BigDecimal}
+ * arithmetic. Rounding is always {@link RoundingMode#HALF_EVEN}.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class Money implements Comparable<Money> {
+
+    /**
+     * The scale of settled amounts.
+     */
+    public static final int SETTLEMENT_SCALE = 2;
+
+    /**
+     * Zero at the settlement scale.
+     */
+    public static final Money ZERO = new Money(0, SETTLEMENT_SCALE, null);
+
+    /**
+     * The largest scale held as a scaled long.
+     */
+    static final int MAX_SCALE = 18;
+
+    /**
+     * Powers of ten that fit in a long.
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The unscaled value, when the amount fits in a scaled long.
+     */
+    private final long unscaled;
+
+    /**
+     * The scale.
+     */
+    private final int scale;
+
+    /**
+     * The amount when it does not fit in a scaled long, otherwise null.
+     */
+    private final BigDecimal big;
+
+    /**
+     * Create an instance of the {@link Money} class.
+     * @param unscaled The unscaled value.
+     * @param scale The scale.
+     * @param big The amount when it does not fit in a scaled long, otherwise null.
+     */
+    private Money(long unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * Get the amount for an unscaled value and scale.
+     * @param unscaled The unscaled value.
+     * @param scale The scale.
+     * @return The amount.
+     */
+    public static Money of(long unscaled, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            return new Money(0, scale, BigDecimal.valueOf(unscaled, scale));
+        }
+
+        return new Money(unscaled, scale, null);
+    }
+
+    /**
+     * Get the amount for a {@link BigDecimal}, keeping its scale.
+     * @param value The value.
+     * @return The amount.
+     */
+    public static Money of(BigDecimal value) {
+        if (value.scale() < 0 || value.scale() > MAX_SCALE || value.precision() > MAX_SCALE) {
+            return new Money(0, value.scale(), value);
+        }
+
+        return new Money(value.unscaledValue().longValue(), value.scale(), null);
+    }
+
+    /**
+     * Get the amount represented by a string, as for {@link BigDecimal#BigDecimal(String)}.
+     * @param value The string.
+     * @return The amount.
+     * @throws NumberFormatException When the string is not a valid amount.
+     */
+    public static Money parse(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    /**
+     * @return The scale.
+     */
+    public int getScale() {
+        return this.scale;
+    }
+
+    /**
+     * Multiply by another amount and a number of units, rounding the product to a scale.
+     * <p>
+     * This is equivalent to {@code this.multiply(other).multiply(units).setScale(scale, HALF_EVEN)} with
+     * {@link BigDecimal} but, other than the result, allocates nothing unless the product overflows a long.
+     * </p>
+     * @param other The other amount.
+     * @param units The units.
+     * @param scale The scale of the result.
+     * @return The rounded product.
+     */
+    public Money multiply(Money other, long units, int scale) {
+        if (this.big == null && other.big == null) {
+            long product = multiplyUnscaled(this.unscaled, this.scale, other.unscaled, other.scale, units, scale);
+            if (product != OVERFLOW) {
+                return new Money(product, scale, null);
+            }
+        }
+
+        return of(this.toBigDecimal()
+            .multiply(other.toBigDecimal())
+            .multiply(BigDecimal.valueOf(units))
+            .setScale(scale, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Multiply two scaled longs and a number of units, rounding the product half even to a scale,
+     * as {@link #multiply(Money, long, int)} does for compact amounts.
+     * @param x The first unscaled value.
+     * @param xScale The scale of the first value.
+     * @param y The second unscaled value.
+     * @param yScale The scale of the second value.
+     * @param units The units.
+     * @param scale The scale of the result.
+     * @return The unscaled rounded product, or {@link #OVERFLOW} when it must be calculated
+     * with {@link #multiply(Money, long, int)} instead.
+     */
+    static long multiplyUnscaled(long x, int xScale, long y, int yScale, long units, int scale) {
+        int productScale = xScale + yScale;
+        if (productScale > MAX_SCALE || scale < 0 || scale > MAX_SCALE) {
+            return OVERFLOW;
+        }
+
+        return rescale(multiplyExact(multiplyExact(x, y), units), productScale, scale);
+    }
+
+    /**
+     * @return True when the amount is held as a scaled long.
+     */
+    boolean isCompact() {
+        return this.big == null;
+    }
+
+    /**
+     * @return The unscaled value, only meaningful when the amount {@link #isCompact()}.
+     */
+    long getUnscaled() {
+        return this.unscaled;
+    }
+
+    /**
+     * Add another amount, as for {@link BigDecimal#add(BigDecimal)}.
+     * @param other The other amount.
+     * @return The sum, with the larger of the two scales.
+     */
+    public Money add(Money other) {
+        if (this.big == null && other.big == null) {
+            int sumScale = Math.max(this.scale, other.scale);
+            long sum = addExact(
+                rescale(this.unscaled, this.scale, sumScale),
+                rescale(other.unscaled, other.scale, sumScale));
+            if (sum != OVERFLOW) {
+                return new Money(sum, sumScale, null);
+            }
+        }
+
+        return of(this.toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    /**
+     * @return The amount as a {@link BigDecimal}.
+     */
+    public BigDecimal toBigDecimal() {
+        return this.big != null ? this.big : BigDecimal.valueOf(this.unscaled, this.scale);
+    }
+
+    /**
+     * Compare numerically, ignoring scale, as for {@link BigDecimal#compareTo(BigDecimal)}.
+     * @param other The other amount.
+     * @return A negative number, zero, or a positive number as this is less than, equal to, or greater than the other.
+     */
+    @Override
+    public int compareTo(Money other) {
+        if (this.big == null && other.big == null) {
+            if (this.scale == other.scale) {
+                return Long.compare(this.unscaled, other.unscaled);
+            }
+
+            int commonScale = Math.max(this.scale, other.scale);
+            long thisUnscaled = rescale(this.unscaled, this.scale, commonScale);
+            long otherUnscaled = rescale(other.unscaled, other.scale, commonScale);
+            if (thisUnscaled != OVERFLOW && otherUnscaled != OVERFLOW) {
+                return Long.compare(thisUnscaled, otherUnscaled);
+            }
+        }
+
+        return this.toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /**
+     * Equality of value and scale, as for {@link BigDecimal#equals(Object)}.
+     * @param obj The other object.
+     * @return True when equal.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Money other = (Money) obj;
+        if (this.big != null || other.big != null) {
+            return this.toBigDecimal().equals(other.toBigDecimal());
+        }
+        return this.unscaled == other.unscaled && this.scale == other.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.toBigDecimal().hashCode();
+    }
+
+    /**
+     * @return The amount as for {@link BigDecimal#toString()}.
+     */
+    @Override
+    public String toString() {
+        return this.toBigDecimal().toString();
+    }
+
+    /**
+     * Marker for an overflowed long result.
+     * <p>
+     * The marker is a legitimate value, so a result equal to it simply takes the slower {@link BigDecimal} path.
+     * </p>
+     */
+    static final long OVERFLOW = Long.MIN_VALUE;
+
+    /**
+     * Multiply two longs.
+     * @return The product, or {@link #OVERFLOW}.
+     */
+    private static long multiplyExact(long x, long y) {
+        if (x == OVERFLOW || y == OVERFLOW) {
+            return OVERFLOW;
+        }
+
+        long product = x * y;
+        long ax = Math.abs(x);
+        long ay = Math.abs(y);
+        if (((ax | ay) >>> 31 != 0) && ((y != 0 && product / y != x) || (x == Long.MIN_VALUE && y == -1))) {
+            return OVERFLOW;
+        }
+
+        return product;
+    }
+
+    /**
+     * Add two longs.
+     * @return The sum, or {@link #OVERFLOW}.
+     */
+    private static long addExact(long x, long y) {
+        if (x == OVERFLOW || y == OVERFLOW) {
+            return OVERFLOW;
+        }
+
+        long sum = x + y;
+        if (((x ^ sum) & (y ^ sum)) < 0) {
+            return OVERFLOW;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Change the scale of an unscaled value, rounding half even when the scale is reduced.
+     * @param unscaled The unscaled value.
+     * @param fromScale The scale of the value.
+     * @param toScale The new scale.
+     * @return The rescaled value, or {@link #OVERFLOW}.
+     */
+    private static long rescale(long unscaled, int fromScale, int toScale) {
+        if (unscaled == OVERFLOW || fromScale == toScale) {
+            return unscaled;
+        }
+
+        if (toScale > fromScale) {
+            return multiplyExact(unscaled, POWERS_OF_TEN[toScale - fromScale]);
+        }
+
+        long divisor = POWERS_OF_TEN[fromScale - toScale];
+        long quotient = unscaled / divisor;
+        long remainder = Math.abs(unscaled % divisor);
+        long twiceRemainder = remainder << 1;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient += unscaled < 0 ? -1 : 1;
+        }
+
+        return quotient;
+    }
+
+    /**
+     * A mutable running total, adding amounts without allocating unless the total overflows a long.
+     */
+    static final class Sum {
+
+        /**
+         * The unscaled total, when it fits in a scaled long.
+         */
+        private long unscaled;
+
+        /**
+         * The scale of the total.
+         */
+        private int scale;
+
+        /**
+         * The total when it does not fit in a scaled long, otherwise null.
+         */
+        private BigDecimal big;
+
+        /**
+         * Create a zero total.
+         * @param scale The initial scale.
+         */
+        Sum(int scale) {
+            this.scale = scale;
+        }
+
+        /**
+         * Create a copy of a total.
+         * @param other The total.
+         */
+        Sum(Sum other) {
+            this.unscaled = other.unscaled;
+            this.scale = other.scale;
+            this.big = other.big;
+        }
+
+        /**
+         * Add an amount to the total, as for {@link BigDecimal#add(BigDecimal)}.
+         * @param amount The amount.
+         */
+        void add(Money amount) {
+            if (this.big == null && amount.big == null) {
+                int sumScale = Math.max(this.scale, amount.scale);
+                long sum = addExact(
+                    rescale(this.unscaled, this.scale, sumScale),
+                    rescale(amount.unscaled, amount.scale, sumScale));
+                if (sum != OVERFLOW) {
+                    this.unscaled = sum;
+                    this.scale = sumScale;
+                    return;
+                }
+            }
+
+            BigDecimal total = this.big != null ? this.big : BigDecimal.valueOf(this.unscaled, this.scale);
+            this.big = total.add(amount.toBigDecimal());
+            this.scale = this.big.scale();
+        }
+
+        /**
+         * @return The total.
+         */
+        Money get() {
+            return this.big == null ? new Money(this.unscaled, this.scale, null) : of(this.big);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.core.DtreException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class stores trade instructions outside the heap as fixed size binary records, either in
+ * direct buffers or in a memory mapped file.
+ * <p>
+ * Each record is {@value #RECORD_SIZE} bytes, laid out as:
+ * </p>
+ * <pre>
+ *  0 int  entity id          24 long agreed fx unscaled
+ *  4 int  currency code id   32 long unit price unscaled
+ *  8 int  instruction day    40 long settled amount unscaled
+ * 12 int  settlement day     48 byte buy/sell
+ * 16 int  effective day      49 byte agreed fx scale
+ * 20 int  units              50 byte unit price scale
+ *                            51 byte settled amount scale
+ * </pre>
+ * <p>
+ * Entities and currency codes are their ids in the symbol tables shared by instructions, which are
+ * small and held on the heap, dates are epoch days and amounts are scaled longs. Amounts that do not
+ * fit in a scaled long are kept on the heap. Records are held in segments of a fixed number of records, so a store can hold more
+ * than a single buffer can address and never copies records as it grows.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class OffHeapInstructionStore extends InstructionStore implements Closeable {
+
+    /**
+     * The size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 56;
+
+    /**
+     * The default number of records in a segment as a power of two.
+     */
+    static final int DEFAULT_SEGMENT_SHIFT = 16;
+
+    private static final int ENTITY = 0;
+
+    private static final int CURRENCY_CODE = 4;
+
+    private static final int INSTRUCTION_DAY = 8;
+
+    private static final int SETTLEMENT_DAY = 12;
+
+    private static final int EFFECTIVE_DAY = 16;
+
+    private static final int UNITS = 20;
+
+    private static final int AGREED_FX = 24;
+
+    private static final int UNIT_PRICE = 32;
+
+    private static final int SETTLED_AMOUNT = 40;
+
+    private static final int BUY_SELL = 48;
+
+    private static final int AGREED_FX_SCALE = 49;
+
+    private static final int UNIT_PRICE_SCALE = 50;
+
+    private static final int SETTLED_AMOUNT_SCALE = 51;
+
+    /**
+     * The flag for a sell.
+     */
+    private static final byte SELL = 1;
+
+    /**
+     * The scale of a missing amount.
+     */
+    private static final byte NONE = Byte.MIN_VALUE;
+
+    /**
+     * The scale of an amount that does not fit in a scaled long.
+     */
+    private static final byte BIG = Byte.MIN_VALUE + 1;
+
+    /**
+     * The amounts that do not fit in a scaled long, keyed on the position of their record and their offset in it.
+     */
+    private final Map<Long, Money> bigs = new HashMap<>();
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * The number of records in a segment as a power of two.
+     */
+    private final int segmentShift;
+
+    private final int segmentMask;
+
+    /**
+     * The file the segments are mapped from, null for direct buffers.
+     */
+    private final FileChannel file;
+
+    private int size;
+
+    /**
+     * Create an instance of the {@link OffHeapInstructionStore} class holding records in direct buffers.
+     * @param workingWeek The working week for the stored instructions.
+     */
+    public OffHeapInstructionStore(WorkingWeek workingWeek) {
+        this(workingWeek, null, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Create an instance of the {@link OffHeapInstructionStore} class holding records in a memory mapped file,
+     * which is replaced.
+     * @param workingWeek The working week for the stored instructions.
+     * @param path The path of the file.
+     * @throws DtreException When the file cannot be opened.
+     */
+    public OffHeapInstructionStore(WorkingWeek workingWeek, Path path) {
+        this(workingWeek, path, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    /**
+     * Create an instance of the {@link OffHeapInstructionStore} class.
+     * @param workingWeek The working week for the stored instructions.
+     * @param path The path of the file to map, null for direct buffers.
+     * @param segmentShift The number of records in a segment as a power of two.
+     * @throws DtreException When the file cannot be opened.
+     */
+    OffHeapInstructionStore(WorkingWeek workingWeek, Path path, int segmentShift) {
+        super(workingWeek);
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        if (path == null) {
+            this.file = null;
+            return;
+        }
+
+        try {
+            this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new DtreException(MessageFormat.format("unable to open the instruction store file \"{0}\"", path), ex);
+        }
+    }
+
+    /**
+     * Close the file the records are mapped from, if any. The mapped segments remain readable until
+     * they are garbage collected.
+     * @throws IOException When the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.file != null) {
+            this.file.close();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public OffHeapInstructionStore add(Instruction instruction) {
+        if ((this.size >>> this.segmentShift) == this.segments.size()) {
+            this.segments.add(this.createSegment(this.segments.size()));
+        }
+
+        int index = this.size++;
+        ByteBuffer segment = this.segment(index);
+        int offset = this.offset(index);
+        segment.putInt(offset + ENTITY, instruction.getEntityId());
+        segment.putInt(offset + CURRENCY_CODE, instruction.getCurrencyId());
+        segment.putInt(offset + INSTRUCTION_DAY, (int) instruction.getInstructionDate().toEpochDay());
+        segment.putInt(offset + SETTLEMENT_DAY, (int) instruction.getSettlementDate().toEpochDay());
+        segment.putInt(offset + EFFECTIVE_DAY, (int) instruction.getEffectiveSettlementDate().toEpochDay());
+        segment.putInt(offset + UNITS, instruction.getUnits());
+        segment.put(offset + BUY_SELL, instruction.getBuySell() == BuySell.S ? SELL : 0);
+        this.setMoney(index, AGREED_FX, AGREED_FX_SCALE, instruction.getAgreedFxMoney());
+        this.setMoney(index, UNIT_PRICE, UNIT_PRICE_SCALE, instruction.getUnitPriceMoney());
+        this.setMoney(index, SETTLED_AMOUNT, SETTLED_AMOUNT_SCALE, instruction.getSettledMoney().orElse(null));
+        return this;
+    }
+
+    /**
+     * Create a segment, mapping it from the file when there is one.
+     * @param number The number of the segment.
+     * @return The segment.
+     * @throws DtreException When the segment cannot be mapped.
+     */
+    private ByteBuffer createSegment(int number) {
+        int segmentSize = RECORD_SIZE << this.segmentShift;
+        if (this.file == null) {
+            return ByteBuffer.allocateDirect(segmentSize).order(ByteOrder.nativeOrder());
+        }
+
+        try {
+            return this.file.map(FileChannel.MapMode.READ_WRITE, (long) number * segmentSize, segmentSize)
+                .order(ByteOrder.nativeOrder());
+        } catch (IOException ex) {
+            throw new DtreException("unable to map the instruction store file", ex);
+        }
+    }
+
+    private ByteBuffer segment(int index) {
+        return this.segments.get(index >>> this.segmentShift);
+    }
+
+    private int offset(int index) {
+        return (index & this.segmentMask) * RECORD_SIZE;
+    }
+
+    /**
+     * Get an amount from a record.
+     * @param index The position of the record.
+     * @param field The offset of the unscaled amount.
+     * @param scaleField The offset of the scale.
+     * @return The amount, or null when missing.
+     */
+    private Money getMoney(int index, int field, int scaleField) {
+        ByteBuffer segment = this.segment(index);
+        int offset = this.offset(index);
+        byte scale = segment.get(offset + scaleField);
+        if (scale == NONE) {
+            return null;
+        }
+
+        return scale == BIG ? this.bigs.get(bigKey(index, field)) : Money.of(segment.getLong(offset + field), scale);
+    }
+
+    /**
+     * Set an amount in a record.
+     * @param index The position of the record.
+     * @param field The offset of the unscaled amount.
+     * @param scaleField The offset of the scale.
+     * @param amount The amount, or null when missing.
+     */
+    private void setMoney(int index, int field, int scaleField, Money amount) {
+        ByteBuffer segment = this.segment(index);
+        int offset = this.offset(index);
+        if (segment.get(offset + scaleField) == BIG) {
+            this.bigs.remove(bigKey(index, field));
+        }
+
+        if (amount == null) {
+            segment.put(offset + scaleField, NONE);
+        } else if (amount.isCompact()) {
+            segment.putLong(offset + field, amount.getUnscaled());
+            segment.put(offset + scaleField, (byte) amount.getScale());
+        } else {
+            segment.put(offset + scaleField, BIG);
+            this.bigs.put(bigKey(index, field), amount);
+        }
+    }
+
+    private static long bigKey(int index, int field) {
+        return (long) index * RECORD_SIZE + field;
+    }
+
+    @Override
+    int getEntityId(int index) {
+        return this.segment(index).getInt(this.offset(index) + ENTITY);
+    }
+
+    @Override
+    BuySell getBuySell(int index) {
+        return this.segment(index).get(this.offset(index) + BUY_SELL) == SELL ? BuySell.S : BuySell.B;
+    }
+
+    @Override
+    Money getAgreedFx(int index) {
+        return this.getMoney(index, AGREED_FX, AGREED_FX_SCALE);
+    }
+
+    @Override
+    int getCurrencyId(int index) {
+        return this.segment(index).getInt(this.offset(index) + CURRENCY_CODE);
+    }
+
+    @Override
+    long getInstructionEpochDay(int index) {
+        return this.segment(index).getInt(this.offset(index) + INSTRUCTION_DAY);
+    }
+
+    @Override
+    long getSettlementEpochDay(int index) {
+        return this.segment(index).getInt(this.offset(index) + SETTLEMENT_DAY);
+    }
+
+    @Override
+    long getEffectiveEpochDay(int index) {
+        return this.segment(index).getInt(this.offset(index) + EFFECTIVE_DAY);
+    }
+
+    @Override
+    int getUnits(int index) {
+        return this.segment(index).getInt(this.offset(index) + UNITS);
+    }
+
+    @Override
+    Money getUnitPrice(int index) {
+        return this.getMoney(index, UNIT_PRICE, UNIT_PRICE_SCALE);
+    }
+
+    @Override
+    Money getSettledAmount(int index) {
+        return this.getMoney(index, SETTLED_AMOUNT, SETTLED_AMOUNT_SCALE);
+    }
+
+    @Override
+    boolean isSettled(int index) {
+        return this.segment(index).get(this.offset(index) + SETTLED_AMOUNT_SCALE) != NONE;
+    }
+
+    @Override
+    void setSettledAmount(int index, Money settledAmount) {
+        this.setMoney(index, SETTLED_AMOUNT, SETTLED_AMOUNT_SCALE, settledAmount);
+    }
+
+    @Override
+    void settle(int index, long today) {
+        ByteBuffer segment = this.segment(index);
+        int offset = this.offset(index);
+        if (segment.getInt(offset + EFFECTIVE_DAY) > today) {
+            return;
+        }
+
+        // Multiply the scaled longs in the record, creating amounts only when the product overflows.
+        byte agreedFxScale = segment.get(offset + AGREED_FX_SCALE);
+        byte unitPriceScale = segment.get(offset + UNIT_PRICE_SCALE);
+        long settled = agreedFxScale >= 0 && unitPriceScale >= 0
+            ? Money.multiplyUnscaled(segment.getLong(offset + UNIT_PRICE), unitPriceScale,
+                segment.getLong(offset + AGREED_FX), agreedFxScale, segment.getInt(offset + UNITS), Money.SETTLEMENT_SCALE)
+            : Money.OVERFLOW;
+        if (settled == Money.OVERFLOW) {
+            super.settle(index, today);
+        } else {
+            if (segment.get(offset + SETTLED_AMOUNT_SCALE) == BIG) {
+                this.bigs.remove(bigKey(index, SETTLED_AMOUNT));
+            }
+
+            segment.putLong(offset + SETTLED_AMOUNT, settled);
+            segment.put(offset + SETTLED_AMOUNT_SCALE, (byte) Money.SETTLEMENT_SCALE);
+        }
+    }
+
+    @Override
+    int compareRank(int index, int otherIndex) {
+        ByteBuffer segment = this.segment(index);
+        ByteBuffer otherSegment = this.segment(otherIndex);
+        int offset = this.offset(index);
+        int otherOffset = this.offset(otherIndex);
+        byte scale = segment.get(offset + SETTLED_AMOUNT_SCALE);
+        if (scale >= 0 && scale == otherSegment.get(otherOffset + SETTLED_AMOUNT_SCALE)) {
+            return Long.compare(otherSegment.getLong(otherOffset + SETTLED_AMOUNT), segment.getLong(offset + SETTLED_AMOUNT));
+        }
+
+        return super.compareRank(index, otherIndex);
+    }
+}
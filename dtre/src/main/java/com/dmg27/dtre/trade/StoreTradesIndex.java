@@ -0,0 +1,289 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.util.BoundedHeap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This class represents a secondary index of the trades in an {@link InstructionStore}, keyed on effective
+ * settlement date and then entity.
+ * <p>
+ * The index is built in a single pass over the store, reading the fields of each trade from the store
+ * rather than creating an instruction for it, and holds each trade as an int, its place in the indexed
+ * order, so that it adds a few bytes a trade to the heap however large the store. An instruction is
+ * created only for each trade a query returns, and the settled totals are read without creating any.
+ * The index is not changed once built.
+ * </p>
+ * @author douglasmcgee
+ */
+final class StoreTradesIndex extends AbstractTradesIndex {
+
+    /**
+     * The initial capacity of a bucket.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The store.
+     */
+    private final InstructionStore store;
+
+    /**
+     * The positions of the trades in the store in indexed order, null for stored order.
+     */
+    private final int[] order;
+
+    /**
+     * The number of trades indexed.
+     */
+    private final int size;
+
+    /**
+     * The epoch day of the first effective settlement date.
+     */
+    private final long firstDay;
+
+    /**
+     * Buckets for all entities for each day from the first to the last effective settlement date,
+     * null for days without trades.
+     */
+    private final DayBucket[] days;
+
+    /**
+     * Create an instance of the {@link StoreTradesIndex} class.
+     * @param store The store.
+     * @param order The positions of the trades in the store in rank order, or null to index them unranked
+     * in stored order.
+     */
+    StoreTradesIndex(InstructionStore store, int[] order) {
+        this.store = store;
+        this.order = order;
+        this.size = order == null ? store.size() : order.length;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < this.size; i++) {
+            long day = store.getEffectiveEpochDay(this.position(i));
+            first = Math.min(first, day);
+            last = Math.max(last, day);
+        }
+
+        this.firstDay = first;
+        this.days = new DayBucket[this.size == 0 ? 0 : (int) (last - first + 1)];
+        for (int entry = 0; entry < this.size; entry++) {
+            int position = this.position(entry);
+            int day = (int) (store.getEffectiveEpochDay(position) - first);
+            if (this.days[day] == null) {
+                this.days[day] = new DayBucket();
+            }
+
+            BuySell buySell = store.getBuySell(position);
+            Money settledAmount = store.getSettledAmount(position);
+            this.days[day].add(entry, buySell, settledAmount);
+            this.days[day].getOrAddEntity(store.getEntityId(position)).add(entry, buySell, settledAmount);
+        }
+
+        for (DayBucket day : this.days) {
+            if (day != null) {
+                day.trim();
+            }
+        }
+    }
+
+    /**
+     * Get the position in the store of a trade.
+     * @param entry The place of the trade in the indexed order.
+     * @return The position.
+     */
+    private int position(int entry) {
+        return this.order == null ? entry : this.order[entry];
+    }
+
+    @Override
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the bucket for a date.
+     * @param date The effective settlement date.
+     * @return The bucket, or null when there are no trades for the date.
+     */
+    private DayBucket getDay(LocalDate date) {
+        long day = date.toEpochDay() - this.firstDay;
+        return day < 0 || day >= this.days.length ? null : this.days[(int) day];
+    }
+
+    @Override
+    Bucket getTotals(LocalDate date, Optional<String> entity) {
+        DayBucket day = this.getDay(date);
+        if (day == null || !entity.isPresent()) {
+            return day;
+        }
+
+        return day.getEntity(Instruction.ENTITIES.find(entity.get()));
+    }
+
+    @Override
+    List<Bucket> getEntityTotals(LocalDate date) {
+        DayBucket day = this.getDay(date);
+        return day == null ? Collections.emptyList() : day.entities;
+    }
+
+    @Override
+    Stream<LocalDate> getSettledDates() {
+        return IntStream.range(0, this.days.length)
+            .filter(day -> this.days[day] != null && this.days[day].highest != null)
+            .mapToObj(day -> LocalDate.ofEpochDay(this.firstDay + day));
+    }
+
+    @Override
+    List<Instruction> getTradesOnAndFor(LocalDate date, Optional<String> entity) {
+        Bucket bucket = this.getTotals(date, entity);
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+
+        List<Instruction> trades = new ArrayList<>(bucket.size);
+        for (int i = 0; i < bucket.size; i++) {
+            trades.add(this.store.get(this.position(bucket.entries[i])));
+        }
+
+        return trades;
+    }
+
+    @Override
+    List<Instruction> getTopSettledOnAndFor(LocalDate date, Optional<String> entity, int limit) {
+        boolean ranked = this.order != null;
+        BoundedHeap<Integer> top = new BoundedHeap<>(limit, (a, b) -> this.store.compareRank(this.position(a), this.position(b)));
+        Bucket bucket = this.getTotals(date, entity);
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+
+        for (int i = 0; i < bucket.size; i++) {
+            boolean settled = this.store.isSettled(this.position(bucket.entries[i]));
+            if (ranked && (top.size() == limit || !settled)) {
+                // The rest of a ranked bucket ranks no higher.
+                break;
+            }
+
+            if (settled) {
+                top.offer(bucket.entries[i]);
+            }
+        }
+
+        List<Instruction> trades = new ArrayList<>(top.size());
+        top.toList().forEach(entry -> trades.add(this.store.get(this.position(entry))));
+        return trades;
+    }
+
+    /**
+     * The trades and settled totals for an effective settlement date and an entity, or for all entities.
+     */
+    static class Bucket extends SettledTotals {
+
+        /**
+         * The places of the trades in the indexed order, in that order.
+         */
+        int[] entries = new int[INITIAL_CAPACITY];
+
+        /**
+         * The number of trades.
+         */
+        int size;
+
+        Bucket(String entity) {
+            super(entity);
+        }
+
+        /**
+         * Add a trade to the bucket.
+         * @param entry The place of the trade in the indexed order.
+         * @param buySell The buy/sell of the trade.
+         * @param settledAmount The settled amount of the trade, null when it is not settled.
+         */
+        void add(int entry, BuySell buySell, Money settledAmount) {
+            if (this.size == this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries, this.size * 2);
+            }
+
+            this.entries[this.size++] = entry;
+            this.addTotals(buySell, settledAmount);
+        }
+
+        /**
+         * Release the spare capacity of the bucket.
+         */
+        void trim() {
+            this.entries = Arrays.copyOf(this.entries, this.size);
+        }
+    }
+
+    /**
+     * The trades and settled totals for an effective settlement date, with a bucket for each entity.
+     */
+    static final class DayBucket extends Bucket {
+
+        /**
+         * Buckets for each entity, in order of first appearance in the indexed trades.
+         */
+        final List<Bucket> entities = new ArrayList<>();
+
+        /**
+         * Buckets for each entity indexed by entity id, null for entities without trades on the date.
+         */
+        private Bucket[] entityIds = new Bucket[0];
+
+        DayBucket() {
+            super(null);
+        }
+
+        /**
+         * Get the bucket for an entity.
+         * @param entityId The id of the entity.
+         * @return The bucket, or null when the entity has no trades on the date.
+         */
+        Bucket getEntity(int entityId) {
+            return entityId >= 0 && entityId < this.entityIds.length ? this.entityIds[entityId] : null;
+        }
+
+        /**
+         * Get the bucket for an entity, adding it when it is new.
+         * @param entityId The id of the entity.
+         * @return The bucket.
+         */
+        Bucket getOrAddEntity(int entityId) {
+            Bucket bucket = this.getEntity(entityId);
+            if (bucket == null) {
+                if (entityId >= this.entityIds.length) {
+                    this.entityIds = Arrays.copyOf(this.entityIds, Math.max(entityId + 1, this.entityIds.length * 2));
+                }
+
+                bucket = new Bucket(Instruction.ENTITIES.symbol(entityId));
+                this.entityIds[entityId] = bucket;
+                this.entities.add(bucket);
+            }
+
+            return bucket;
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            this.entities.forEach(Bucket::trim);
+        }
+    }
+}
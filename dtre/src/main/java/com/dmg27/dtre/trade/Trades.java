@@ -0,0 +1,568 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * This class represents trades made.
+ * <p>
+ * Trades may be built from a full list and settled once, or grown incrementally with {@link #add(Collection)},
+ * which settles only the added instructions and updates the ranking and the index in place.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class Trades {
+    
+    /**
+     * The trades, null when they are still to be gathered from the index.
+     */
+    private List<Instruction> tradesCltn = new ArrayList<>();
+    
+    private WorkingWeek workingWeek;
+    
+    /**
+     * Index of the trades by effective settlement date and entity, with the running settled totals for
+     * each date and each entity on a date. It is built by settlement and kept up to date by adding
+     * trades, and is otherwise null until first queried and whenever the trades are replaced. It is
+     * always null for trades backed by a store.
+     */
+    private TradesIndex index;
+    
+    /**
+     * The store backing the trades, null when the trades are a list of instructions.
+     */
+    private InstructionStore store;
+    
+    /**
+     * The positions of the trades in the store in rank order, null when they are not ranked.
+     */
+    private int[] storeOrder;
+    
+    /**
+     * Index of the trades backed by a store, holding their positions rather than instructions, built when
+     * the trades are settled or first queried, null until then and whenever the trades are replaced.
+     */
+    private StoreTradesIndex storeIndex;
+    
+    /**
+     * True when the trades are ranked by settled amount, which is when they have been settled.
+     */
+    private boolean ranked;
+    
+    /**
+     * True when the list of trades was created here, so that it may be added to.
+     */
+    private boolean ownTrades = true;
+    
+    /**
+     * The id for the next instruction added.
+     */
+    private int nextId;
+    
+    /**
+     * The default number of trades below which settlement is sequential even with a settlement pool.
+     */
+    public static final int DEFAULT_PARALLEL_SETTLEMENT_THRESHOLD = 1 << 16;
+    
+    /**
+     * The fewest trades settled and ranked by one task of a parallel settlement.
+     */
+    static final int MIN_SETTLEMENT_TASK_SIZE = 1 << 10;
+    
+    /**
+     * The pool for parallel settlement, null for sequential settlement.
+     */
+    private ForkJoinPool settlementPool;
+    
+    /**
+     * The number of trades below which settlement is sequential even with a settlement pool.
+     */
+    private int parallelSettlementThreshold = DEFAULT_PARALLEL_SETTLEMENT_THRESHOLD;
+    
+    public Trades trades(List<Instruction> tradesCltn) {
+        this.tradesCltn = tradesCltn;
+        this.store = null;
+        this.storeOrder = null;
+        this.storeIndex = null;
+        this.index = null;
+        this.ranked = false;
+        this.ownTrades = false;
+        int id = 0;
+        for (Instruction instruction : this.tradesCltn) {
+            instruction.id(id++);
+        }
+        
+        this.nextId = id;
+        return this;
+    }
+
+    /**
+     * Set a store as the backing for the trades.
+     * <p>
+     * The trades are settled in the store and read through its list view, which creates an
+     * {@link Instruction} for each trade read, with the position in the store as its id.
+     * </p>
+     * @param store The store.
+     * @return These trades.
+     */
+    public Trades trades(InstructionStore store) {
+        this.tradesCltn = store.asList();
+        this.store = store;
+        this.storeOrder = null;
+        this.storeIndex = null;
+        this.index = null;
+        this.ranked = false;
+        this.ownTrades = false;
+        this.nextId = store.size();
+        return this;
+    }
+
+    /**
+     * Set an index as the backing for the trades.
+     * <p>
+     * The index is copied, sharing its buckets, so adding to these trades leaves it unchanged. A list of
+     * the trades may be shared too, as it is never changed when adding to ranked trades.
+     * </p>
+     * @param index The index.
+     * @param tradesCltn The trades in the indexed order, or null to gather them from the index, ranked,
+     * when they are first read.
+     * @param ranked True when the trades are ranked.
+     * @param nextId The id for the next instruction added.
+     * @return These trades.
+     */
+    Trades trades(TradesIndex index, List<Instruction> tradesCltn, boolean ranked, int nextId) {
+        this.tradesCltn = tradesCltn;
+        this.store = null;
+        this.storeOrder = null;
+        this.storeIndex = null;
+        this.index = new TradesIndex(index);
+        this.ranked = ranked;
+        this.ownTrades = false;
+        this.nextId = nextId;
+        return this;
+    }
+
+    /**
+     * Take a point in time snapshot of the trades, which is not changed by adding to these trades.
+     * <p>
+     * The snapshot shares the index of these trades, which move on to a new epoch, so that each of them
+     * copies an index bucket only when first adding to it after the snapshot. Ranked trades share their
+     * list too, while trades that are not ranked copy it. Taking a snapshot, which builds the index when
+     * it is yet to be built, is otherwise cheap, so a long running report on a snapshot sees a consistent
+     * book while instructions continue to be added here. The snapshot may be handed to another thread.
+     * Settling all of these trades again settles the shared instructions again, but the snapshot keeps
+     * its rankings and totals. Trades backed by a store share the store and its index, which adding to
+     * either copies to a list.
+     * </p>
+     * @return The snapshot.
+     */
+    public Trades snapshot() {
+        if (this.store != null) {
+            Trades snapshot = new Trades()
+                .workingWeek(this.workingWeek)
+                .trades(this.store);
+            snapshot.tradesCltn = this.tradesCltn;
+            snapshot.storeOrder = this.storeOrder;
+            snapshot.storeIndex = this.getStoreIndex();
+            snapshot.ranked = this.ranked;
+            return snapshot;
+        }
+        
+        TradesIndex shared = this.getTradesIndex();
+        this.index = new TradesIndex(shared);
+        List<Instruction> snapshotTrades;
+        if (this.ranked) {
+            snapshotTrades = this.tradesCltn;
+            this.ownTrades = false;
+        } else {
+            snapshotTrades = new ArrayList<>(this.tradesCltn);
+        }
+        
+        return new Trades()
+            .workingWeek(this.workingWeek)
+            .trades(shared, snapshotTrades, this.ranked, this.nextId);
+    }
+
+    /**
+     * Add an instruction to the trades.
+     * @param instruction The instruction.
+     * @return These trades.
+     * @see #add(Collection)
+     */
+    public Trades add(Instruction instruction) {
+        return this.add(Collections.singletonList(instruction));
+    }
+
+    /**
+     * Add instructions that have arrived since the trades were created.
+     * <p>
+     * Only the added instructions are settled. When the trades have been settled the added instructions
+     * are inserted into the index after the trades ranked with or above them, and the ranked list of the
+     * trades is gathered again from the index when it is next read, rather than copied on every addition.
+     * Otherwise they are appended, so the trades end up as they would be if all of them had been there
+     * from the start. An index already built is updated rather than rebuilt, copying only buckets it shares
+     * with a snapshot. Trades backed by a store are copied to a list first.
+     * </p>
+     * @param instructions The instructions, in order of arrival.
+     * @return These trades.
+     */
+    public Trades add(Collection<Instruction> instructions) {
+        if (this.store != null || (!this.ownTrades && !this.ranked)) {
+            this.tradesCltn = new ArrayList<>(this.getTrades());
+            this.ownTrades = true;
+            if (this.store != null) {
+                // The store's index is of positions, so the list is indexed afresh.
+                this.store = null;
+                this.storeOrder = null;
+                this.storeIndex = null;
+                this.index = null;
+            }
+        }
+        
+        List<Instruction> added = new ArrayList<>(instructions);
+        for (Instruction instruction : added) {
+            instruction.id(this.nextId++);
+        }
+        
+        added.forEach(Instruction::settle);
+        if (this.ranked) {
+            TradesIndex tradesIndex = this.getTradesIndex();
+            added.forEach(tradesIndex::add);
+            this.tradesCltn = null;
+            this.ownTrades = true;
+        } else {
+            this.tradesCltn.addAll(added);
+            if (this.index != null) {
+                added.forEach(this.index::add);
+            }
+        }
+        
+        return this;
+    }
+
+    public List<Instruction> getTrades() {
+        if (this.tradesCltn == null) {
+            this.tradesCltn = this.index.getTrades();
+        }
+        
+        return tradesCltn;
+    }
+    
+    public List<Instruction> getTradesOn(LocalDate date) {
+        return this.getTradesOnAndFor(date, Optional.empty());
+    }
+    
+    public List<Instruction> getTradesOnAndFor(LocalDate date, Optional<String> entity) {
+        return this.getIndex().getTradesOnAndFor(date, entity);
+    }
+    
+    /**
+     * Get the index of the trades, building it when required.
+     * @return The index of the store backing the trades, or of the list of trades.
+     */
+    private AbstractTradesIndex getIndex() {
+        return this.store != null ? this.getStoreIndex() : this.getTradesIndex();
+    }
+    
+    /**
+     * Get the index of the list of trades, building it when required.
+     * @return The index.
+     */
+    private TradesIndex getTradesIndex() {
+        if (this.index == null) {
+            this.index = new TradesIndex(this.tradesCltn, this.ranked);
+        }
+        
+        return this.index;
+    }
+    
+    /**
+     * Get the index of the store backing the trades, building it when required.
+     * @return The index.
+     */
+    private StoreTradesIndex getStoreIndex() {
+        if (this.storeIndex == null) {
+            this.storeIndex = new StoreTradesIndex(this.store, this.storeOrder);
+        }
+        
+        return this.storeIndex;
+    }
+    
+    public Trades workingWeek(WorkingWeek workingWeek) {
+        this.workingWeek = workingWeek;
+        return this;
+    }
+
+    WorkingWeek getWorkingWeek() {
+        return this.workingWeek;
+    }
+    
+    /**
+     * Set the pool for settling the trades in parallel.
+     * @param settlementPool The pool, null to settle sequentially.
+     * @return These trades.
+     */
+    public Trades settlementPool(ForkJoinPool settlementPool) {
+        this.settlementPool = settlementPool;
+        return this;
+    }
+    
+    /**
+     * Set the number of trades below which settlement is sequential even with a settlement pool.
+     * @param parallelSettlementThreshold The number of trades.
+     * @return These trades.
+     */
+    public Trades parallelSettlementThreshold(int parallelSettlementThreshold) {
+        this.parallelSettlementThreshold = parallelSettlementThreshold;
+        return this;
+    }
+    
+    /**
+     * Settle the trades and rank them by settled amount, building the settled totals for each effective
+     * settlement date and each entity on a date, so that the totals are then looked up rather than summed.
+     * Trades backed by a store are settled and ranked in the store, and their totals are built from the
+     * columns of the store, indexing each trade by its position rather than as an instruction.
+     * @return These trades.
+     */
+    public Trades settle() {
+        if (this.store != null) {
+            this.storeOrder = this.store.settle();
+            this.storeIndex = new StoreTradesIndex(this.store, this.storeOrder);
+            this.tradesCltn = this.store.asList(this.storeOrder);
+        } else {
+            this.tradesCltn = this.settle(this.getTrades());
+            this.index = new TradesIndex(this.tradesCltn, true);
+        }
+        
+        this.ranked = true;
+        this.ownTrades = this.store == null;
+        return this;
+    }
+    
+    /**
+     * Settle the trades without ranking them, building the settled totals as {@link #settle()} does but
+     * leaving the trades in their order, which avoids sorting a large book. The highest ranked trades
+     * and entities are then found with {@link #getTopSettledOnAndFor(LocalDate, Optional, int)} and
+     * {@link #getTopEntitiesOn(BuySell, LocalDate, int)}, and the entities in a {@link DailySummary}
+     * are in order of their first trade.
+     * @return These trades.
+     */
+    public Trades settleWithoutRanking() {
+        if (this.store != null) {
+            this.store.settleWithoutRanking();
+            this.storeOrder = null;
+            this.storeIndex = new StoreTradesIndex(this.store, null);
+            this.tradesCltn = this.store.asList();
+            this.ranked = false;
+            return this;
+        }
+        
+        if (this.settlementPool != null && this.getTrades().size() >= this.parallelSettlementThreshold) {
+            List<Instruction> trades = this.getTrades();
+            this.settlementPool.submit(() -> trades.parallelStream().forEach(Instruction::settle)).join();
+        } else {
+            this.getTrades().forEach(Instruction::settle);
+        }
+        
+        this.index = new TradesIndex(this.tradesCltn, false);
+        this.ranked = false;
+        return this;
+    }
+    
+    /**
+     * Replace the trades by those with an effective settlement date, settled and ranked as for {@link #settle()}.
+     * @param date The effective settlement date.
+     * @return These trades.
+     */
+    public Trades settleOn(LocalDate date) {
+        this.tradesCltn = this.settle(this.getTradesOn(date));
+        this.store = null;
+        this.storeOrder = null;
+        this.storeIndex = null;
+        this.index = new TradesIndex(this.tradesCltn, true);
+        this.ranked = true;
+        this.ownTrades = true;
+        return this;
+    }
+    
+    public List<Instruction> settle(List<Instruction> trades) {
+        if (this.settlementPool != null && trades.size() >= this.parallelSettlementThreshold) {
+            return this.settleInParallel(trades);
+        }
+        
+        trades.stream()
+            .forEach(Instruction::settle);
+        return trades.stream()
+            .sorted(Instruction.RANKING)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Settle trades in parallel on the settlement pool, ranking them exactly as a sequential settlement does.
+     * @param trades The trades.
+     * @return The trades ranked by settled amount.
+     */
+    private List<Instruction> settleInParallel(List<Instruction> trades) {
+        Instruction[] ranked = trades.toArray(new Instruction[trades.size()]);
+        int taskSize = Math.max(MIN_SETTLEMENT_TASK_SIZE, ranked.length / (this.settlementPool.getParallelism() * 4));
+        this.settlementPool.invoke(new SettleTask(ranked, new Instruction[ranked.length], 0, ranked.length, taskSize));
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+    
+    /**
+     * Settles a range of trades and ranks them, splitting the range in two and merging the
+     * ranked halves when it is larger than the task size. Both the sort and the merge are stable.
+     */
+    private static final class SettleTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final Instruction[] trades;
+        
+        /**
+         * Scratch space for merging, the same size as the trades.
+         */
+        private final Instruction[] merged;
+        
+        private final int from;
+        
+        private final int to;
+        
+        private final int taskSize;
+        
+        SettleTask(Instruction[] trades, Instruction[] merged, int from, int to, int taskSize) {
+            this.trades = trades;
+            this.merged = merged;
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+        }
+        
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.taskSize) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.trades[i].settle();
+                }
+                
+                Arrays.sort(this.trades, this.from, this.to, Instruction.RANKING);
+                return;
+            }
+            
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new SettleTask(this.trades, this.merged, this.from, mid, this.taskSize),
+                new SettleTask(this.trades, this.merged, mid, this.to, this.taskSize));
+            this.merge(mid);
+        }
+        
+        /**
+         * Merge the ranked halves of the range, taking from the first half on a tie.
+         * @param mid The start of the second half.
+         */
+        private void merge(int mid) {
+            if (Instruction.RANKING.compare(this.trades[mid - 1], this.trades[mid]) <= 0) {
+                return;
+            }
+            
+            System.arraycopy(this.trades, this.from, this.merged, this.from, this.to - this.from);
+            int left = this.from;
+            int right = mid;
+            for (int i = this.from; i < this.to; i++) {
+                if (right == this.to || (left < mid && Instruction.RANKING.compare(this.merged[left], this.merged[right]) <= 0)) {
+                    this.trades[i] = this.merged[left++];
+                } else {
+                    this.trades[i] = this.merged[right++];
+                }
+            }
+        }
+    }
+    
+    public BigDecimal getTotalSettledIncommingOn(LocalDate date) {
+        return getTotalSettledOnAndFor(BuySell.S, date, Optional.empty());
+    }
+    
+    public BigDecimal getTotalSettledOutgoingOn(LocalDate date) {
+        return getTotalSettledOnAndFor(BuySell.B, date, Optional.empty());
+    }
+    
+    public BigDecimal getTotalSettledIncommingOnAndFor(LocalDate date, String entity) {
+        return getTotalSettledOnAndFor(BuySell.S, date, Optional.of(entity));
+    }
+    
+    public BigDecimal getTotalSettledOutgoingOnAndFor(LocalDate date, String entity) {
+        return getTotalSettledOnAndFor(BuySell.B, date, Optional.of(entity));
+    }
+    
+    public Money getHighestSettledOnAndFor(LocalDate date, String entity) {
+        return this.getIndex().getHighestSettledOnAndFor(date, Optional.of(entity));
+    }
+    
+    /**
+     * Get the highest ranked settled trades for a date and an optional entity, without ranking all of them.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @param limit The most trades to get.
+     * @return The trades, highest settled amount first and in the order of the trades on a tie.
+     * @throws com.dmg27.dtre.core.DtreException When the limit is negative.
+     */
+    public List<Instruction> getTopSettledOnAndFor(LocalDate date, Optional<String> entity, int limit) {
+        return this.getIndex().getTopSettledOnAndFor(date, entity, limit);
+    }
+    
+    /**
+     * Get the settled totals of the entities with the highest incoming or outgoing totals for a date.
+     * @param buySell Buy for outgoing, sell for incoming.
+     * @param date The effective settlement date.
+     * @param limit The most entities to get.
+     * @return The totals, highest first.
+     * @throws com.dmg27.dtre.core.DtreException When the limit is negative.
+     */
+    public List<DailySummary.Totals> getTopEntitiesOn(BuySell buySell, LocalDate date, int limit) {
+        return this.getIndex().getTopEntitiesOn(buySell, date, limit);
+    }
+    
+    /**
+     * Get the first effective settlement date with settled trades, read from the index rather than the trades.
+     * @return The date, or empty when no trade has settled.
+     */
+    public Optional<LocalDate> getFirstSettledDate() {
+        return this.getIndex().getFirstSettledDate();
+    }
+    
+    /**
+     * Get the last effective settlement date with settled trades, read from the index rather than the trades.
+     * @return The date, or empty when no trade has settled.
+     */
+    public Optional<LocalDate> getLastSettledDate() {
+        return this.getIndex().getLastSettledDate();
+    }
+    
+    public DailySummary getDailySummary(LocalDate date) {
+        return this.getIndex().getDailySummary(date);
+    }
+    
+    public Money getSettledOnAndFor(BuySell buySell, LocalDate date, Optional<String> entity) {
+        return this.getIndex().getTotalSettledOnAndFor(buySell, date, entity);
+    }
+    
+    BigDecimal getTotalSettledOnAndFor(BuySell buySell, LocalDate date, Optional<String> entity) {
+        return this.getSettledOnAndFor(buySell, date, entity).toBigDecimal();
+    }
+
+}
@@ -0,0 +1,592 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.util.BoundedHeap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * This class represents a secondary index of trades keyed on effective settlement date and then entity.
+ * <p>
+ * The index is built in a single pass over the trades, computing each effective settlement date once,
+ * and keeps the settled totals for every bucket so that report queries do not rescan the trades.
+ * The trades of an entity on a date are held in {@link Instruction#RANKING} order when the index is
+ * ranked, and in order of arrival otherwise, and the trades of a date are gathered from its entities
+ * in the same order when queried. Entities are looked up by their ids in {@link Instruction#ENTITIES}
+ * rather than by comparing strings.
+ * </p>
+ * <p>
+ * A copy of an index shares all of its buckets and copies a bucket only when first adding to it. Each
+ * index has its own epoch and each bucket the epoch of the index that created it, so a bucket from an
+ * older epoch is known to be shared. The trades of an entity are held in segments of at most
+ * {@value #SEGMENT_SIZE}, and the entities of a date in chunks of {@value #ENTITY_CHUNK_SIZE}, which are
+ * shared in the same way, so adding a trade to a copy copies one segment and one chunk rather than all of
+ * the trades and entities on the date. An index is not thread safe, but once published it is never changed
+ * by adding to a copy of it.
+ * </p>
+ * @author douglasmcgee
+ */
+final class TradesIndex extends AbstractTradesIndex {
+
+    /**
+     * The most trades in a segment of a bucket.
+     */
+    static final int SEGMENT_SIZE = 128;
+
+    /**
+     * The number of entities in a chunk of a day.
+     */
+    static final int ENTITY_CHUNK_SIZE = 64;
+
+    /**
+     * Buckets for all entities keyed on effective settlement date.
+     */
+    private final Map<LocalDate, DayBucket> days;
+
+    /**
+     * The source of epochs.
+     */
+    private static final AtomicLong EPOCHS = new AtomicLong();
+
+    /**
+     * The epoch of the index, given to the buckets it creates.
+     */
+    private final long epoch = EPOCHS.incrementAndGet();
+
+    /**
+     * True when the trades are ranked.
+     */
+    private final boolean ranked;
+
+    /**
+     * The number of trades indexed.
+     */
+    private int size;
+
+    /**
+     * Create an instance of the {@link TradesIndex} class.
+     * @param trades The trades to index, in {@link Instruction#RANKING} order when ranked and otherwise in
+     * order of arrival.
+     * @param ranked True when the trades are ranked.
+     */
+    TradesIndex(List<Instruction> trades, boolean ranked) {
+        this.days = new HashMap<>();
+        this.ranked = ranked;
+        for (Instruction instruction : trades) {
+            DayBucket day = this.days.computeIfAbsent(instruction.getEffectiveSettlementDate(), d -> new DayBucket(this.epoch));
+            day.addTotals(instruction);
+            day.getOrAddEntity(instruction).insert(instruction, false);
+        }
+
+        this.size = trades.size();
+    }
+
+    /**
+     * Create a copy of an index, sharing its buckets until they are added to.
+     * @param index The index.
+     */
+    TradesIndex(TradesIndex index) {
+        this.days = new HashMap<>(index.days);
+        this.ranked = index.ranked;
+        this.size = index.size;
+    }
+
+    /**
+     * Add an instruction to the index, updating the totals and keeping the buckets in the order of the trades.
+     * @param instruction The instruction, settled if it is settleable. When the index is ranked it goes in
+     * {@link Instruction#RANKING} order, whatever the order in which instructions are added, and otherwise
+     * it goes last.
+     */
+    void add(Instruction instruction) {
+        DayBucket day = this.getWritableDay(instruction.getEffectiveSettlementDate());
+        ++this.size;
+        day.addTotals(instruction);
+        day.getOrAddEntity(instruction).insert(instruction, this.ranked);
+    }
+
+    /**
+     * Get the bucket for a date to add to, adding it when it is new and copying it when it is shared
+     * with an older index.
+     * @param date The effective settlement date.
+     * @return The bucket.
+     */
+    private DayBucket getWritableDay(LocalDate date) {
+        DayBucket day = this.days.get(date);
+        if (day == null || day.epoch != this.epoch) {
+            day = day == null ? new DayBucket(this.epoch) : new DayBucket(day, this.epoch);
+            this.days.put(date, day);
+        }
+
+        return day;
+    }
+
+    @Override
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The order of the trades, {@link Instruction#RANKING} when ranked and otherwise arrival.
+     */
+    private Comparator<Instruction> getOrder() {
+        return this.ranked ? Instruction.RANKING : Instruction.ARRIVAL;
+    }
+
+    /**
+     * Get all of the trades, in the order of the index.
+     * @return The trades.
+     */
+    List<Instruction> getTrades() {
+        List<Instruction> trades = new ArrayList<>(this.size);
+        this.days.values().forEach(day -> day.getEntities().forEach(entity -> entity.addTo(trades)));
+        trades.sort(this.getOrder());
+        return trades;
+    }
+
+    @Override
+    SettledTotals getTotals(LocalDate date, Optional<String> entity) {
+        DayBucket day = this.days.get(date);
+        if (day == null || !entity.isPresent()) {
+            return day;
+        }
+
+        return day.getEntity(Instruction.ENTITIES.find(entity.get()));
+    }
+
+    /**
+     * Get the buckets in scope of a query.
+     * @param date The effective settlement date.
+     * @param entity The optional entity.
+     * @return The bucket of the entity, or of every entity when the entity is empty.
+     */
+    private List<EntityBucket> getEntities(LocalDate date, Optional<String> entity) {
+        DayBucket day = this.days.get(date);
+        List<EntityBucket> entities = new ArrayList<>();
+        if (day == null) {
+            return entities;
+        }
+
+        if (!entity.isPresent()) {
+            return day.getEntities();
+        }
+
+        EntityBucket bucket = day.getEntity(Instruction.ENTITIES.find(entity.get()));
+        if (bucket != null) {
+            entities.add(bucket);
+        }
+
+        return entities;
+    }
+
+    @Override
+    List<EntityBucket> getEntityTotals(LocalDate date) {
+        List<EntityBucket> entities = this.getEntities(date, Optional.empty());
+        Comparator<Instruction> order = this.getOrder();
+        entities.sort((a, b) -> order.compare(a.first(), b.first()));
+        return entities;
+    }
+
+    @Override
+    Stream<LocalDate> getSettledDates() {
+        return this.days.entrySet().stream()
+            .filter(day -> day.getValue().highest != null)
+            .map(Map.Entry::getKey);
+    }
+
+    @Override
+    List<Instruction> getTradesOnAndFor(LocalDate date, Optional<String> entity) {
+        List<EntityBucket> entities = this.getEntities(date, entity);
+        List<Instruction> trades = new ArrayList<>();
+        entities.forEach(bucket -> bucket.addTo(trades));
+        if (entities.size() > 1) {
+            trades.sort(this.getOrder());
+        }
+
+        return trades;
+    }
+
+    @Override
+    List<Instruction> getTopSettledOnAndFor(LocalDate date, Optional<String> entity, int limit) {
+        BoundedHeap<Instruction> top = new BoundedHeap<>(limit, Instruction.RANKING);
+        for (EntityBucket bucket : this.getEntities(date, entity)) {
+            bucket.offerSettled(top, this.ranked);
+        }
+
+        return new ArrayList<>(top.toList());
+    }
+
+    /**
+     * The trades and settled totals for an effective settlement date and entity.
+     */
+    static final class EntityBucket extends SettledTotals {
+
+        /**
+         * The epoch of the index that created the bucket.
+         */
+        final long epoch;
+
+        /**
+         * The trades in indexed order, in segments that are shared with copies of the bucket.
+         */
+        private final List<Segment> segments;
+
+        /**
+         * Create an empty bucket.
+         * @param entity The entity.
+         * @param epoch The epoch of the index creating the bucket.
+         */
+        EntityBucket(String entity, long epoch) {
+            super(entity);
+            this.epoch = epoch;
+            this.segments = new ArrayList<>();
+        }
+
+        /**
+         * Create a copy of a bucket, sharing its segments until they are added to.
+         * @param bucket The bucket.
+         * @param epoch The epoch of the index creating the copy.
+         */
+        EntityBucket(EntityBucket bucket, long epoch) {
+            super(bucket);
+            this.epoch = epoch;
+            this.segments = new ArrayList<>(bucket.segments);
+        }
+
+        /**
+         * @return The first trade in indexed order.
+         */
+        Instruction first() {
+            return this.segments.get(0).instructions[0];
+        }
+
+        /**
+         * Add the trades to a list, in indexed order.
+         * @param trades The list.
+         */
+        void addTo(List<Instruction> trades) {
+            for (Segment segment : this.segments) {
+                trades.addAll(Arrays.asList(segment.instructions).subList(0, segment.size));
+            }
+        }
+
+        /**
+         * Offer the settled trades to a heap of the highest ranked trades.
+         * @param top The heap.
+         * @param ranked True when the trades are ranked, so that once a trade is not kept the rest are not offered.
+         */
+        void offerSettled(BoundedHeap<Instruction> top, boolean ranked) {
+            for (Segment segment : this.segments) {
+                for (int i = 0; i < segment.size; i++) {
+                    Instruction instruction = segment.instructions[i];
+                    boolean kept = instruction.isSettled() && top.offer(instruction);
+                    if (ranked && !kept) {
+                        // The rest of a ranked bucket ranks no higher.
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Insert an instruction into the bucket, copying the segment it goes in when the segment is shared,
+         * and splitting the segment when it is full.
+         * @param instruction The instruction.
+         * @param ranked True to insert the instruction in {@link Instruction#RANKING} order, false to add it last.
+         */
+        void insert(Instruction instruction, boolean ranked) {
+            this.addTotals(instruction);
+            if (this.segments.isEmpty()) {
+                this.segments.add(new Segment(this.epoch));
+            }
+
+            int index = ranked ? this.findSegment(instruction) : this.segments.size() - 1;
+            Segment segment = this.getWritableSegment(index);
+            int position = ranked ? segment.upperBound(instruction) : segment.size;
+            if (segment.size == SEGMENT_SIZE) {
+                Segment next;
+                if (position == SEGMENT_SIZE) {
+                    // Only the last segment is added after, so start another rather than leave two half full.
+                    next = new Segment(this.epoch);
+                } else {
+                    next = segment.split(this.epoch);
+                }
+
+                this.segments.add(index + 1, next);
+                if (position >= segment.size) {
+                    position -= segment.size;
+                    segment = next;
+                }
+            }
+
+            segment.insert(position, instruction);
+        }
+
+        /**
+         * Find the segment to insert a ranked instruction into.
+         * @param instruction The instruction.
+         * @return The index of the first segment whose last trade ranks after the instruction, or of the last segment.
+         */
+        private int findSegment(Instruction instruction) {
+            int low = 0;
+            int high = this.segments.size() - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Instruction.RANKING.compare(this.segments.get(mid).last(), instruction) > 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Get a segment to add to, copying it when it is shared with an older index.
+         * @param index The index of the segment.
+         * @return The segment.
+         */
+        private Segment getWritableSegment(int index) {
+            Segment segment = this.segments.get(index);
+            if (segment.epoch != this.epoch) {
+                segment = new Segment(segment, this.epoch);
+                this.segments.set(index, segment);
+            }
+
+            return segment;
+        }
+    }
+
+    /**
+     * A segment of the trades of a bucket.
+     */
+    static final class Segment {
+
+        /**
+         * The epoch of the index that created the segment.
+         */
+        final long epoch;
+
+        /**
+         * The trades, of which the first {@link #size} are used.
+         */
+        final Instruction[] instructions;
+
+        /**
+         * The number of trades.
+         */
+        int size;
+
+        /**
+         * Create an empty segment.
+         * @param epoch The epoch of the index creating the segment.
+         */
+        Segment(long epoch) {
+            this.epoch = epoch;
+            this.instructions = new Instruction[SEGMENT_SIZE];
+        }
+
+        /**
+         * Create a copy of a segment.
+         * @param segment The segment.
+         * @param epoch The epoch of the index creating the copy.
+         */
+        Segment(Segment segment, long epoch) {
+            this.epoch = epoch;
+            this.instructions = segment.instructions.clone();
+            this.size = segment.size;
+        }
+
+        /**
+         * @return The last trade.
+         */
+        Instruction last() {
+            return this.instructions[this.size - 1];
+        }
+
+        /**
+         * Get the position after the last trade ranked with or above an instruction.
+         * @param instruction The instruction.
+         * @return The position.
+         */
+        int upperBound(Instruction instruction) {
+            int low = 0;
+            int high = this.size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Instruction.RANKING.compare(this.instructions[mid], instruction) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Insert an instruction.
+         * @param position The position.
+         * @param instruction The instruction.
+         */
+        void insert(int position, Instruction instruction) {
+            System.arraycopy(this.instructions, position, this.instructions, position + 1, this.size - position);
+            this.instructions[position] = instruction;
+            ++this.size;
+        }
+
+        /**
+         * Move the second half of the trades to a new segment.
+         * @param epoch The epoch of the index creating the new segment.
+         * @return The new segment.
+         */
+        Segment split(long epoch) {
+            Segment next = new Segment(epoch);
+            int half = this.size >>> 1;
+            next.size = this.size - half;
+            System.arraycopy(this.instructions, half, next.instructions, 0, next.size);
+            Arrays.fill(this.instructions, half, this.size, null);
+            this.size = half;
+            return next;
+        }
+    }
+
+    /**
+     * The settled totals for an effective settlement date, with a bucket for each entity.
+     */
+    static final class DayBucket extends SettledTotals {
+
+        /**
+         * The epoch of the index that created the bucket.
+         */
+        final long epoch;
+
+        /**
+         * Buckets for each entity indexed by entity id, in chunks that are shared with copies of the bucket,
+         * null for entities without trades on the date.
+         */
+        private EntityBucket[][] chunks;
+
+        /**
+         * The epoch of the index that created each chunk.
+         */
+        private long[] chunkEpochs;
+
+        /**
+         * The number of entities with trades on the date.
+         */
+        private int entityCount;
+
+        DayBucket(long epoch) {
+            super((String) null);
+            this.epoch = epoch;
+            this.chunks = new EntityBucket[0][];
+            this.chunkEpochs = new long[0];
+        }
+
+        /**
+         * Create a copy of a bucket, sharing the chunks and buckets for the entities until they are added to.
+         * @param bucket The bucket.
+         * @param epoch The epoch of the index creating the copy.
+         */
+        DayBucket(DayBucket bucket, long epoch) {
+            super(bucket);
+            this.epoch = epoch;
+            this.chunks = bucket.chunks.clone();
+            this.chunkEpochs = bucket.chunkEpochs.clone();
+            this.entityCount = bucket.entityCount;
+        }
+
+        /**
+         * Get the bucket for an entity.
+         * @param entityId The id of the entity.
+         * @return The bucket, or null when the entity has no trades on the date.
+         */
+        EntityBucket getEntity(int entityId) {
+            int chunk = entityId / ENTITY_CHUNK_SIZE;
+            if (entityId < 0 || chunk >= this.chunks.length || this.chunks[chunk] == null) {
+                return null;
+            }
+
+            return this.chunks[chunk][entityId % ENTITY_CHUNK_SIZE];
+        }
+
+        /**
+         * @return The buckets for the entities with trades on the date, in order of entity id.
+         */
+        List<EntityBucket> getEntities() {
+            List<EntityBucket> entities = new ArrayList<>(this.entityCount);
+            for (EntityBucket[] chunk : this.chunks) {
+                if (chunk != null) {
+                    for (EntityBucket bucket : chunk) {
+                        if (bucket != null) {
+                            entities.add(bucket);
+                        }
+                    }
+                }
+            }
+
+            return entities;
+        }
+
+        /**
+         * Get the bucket for the entity of an instruction to add to, adding it when it is new and
+         * copying it when it is shared with an older index.
+         * @param instruction The instruction.
+         * @return The bucket.
+         */
+        EntityBucket getOrAddEntity(Instruction instruction) {
+            int entityId = instruction.getEntityId();
+            EntityBucket[] chunk = this.getWritableChunk(entityId / ENTITY_CHUNK_SIZE);
+            int slot = entityId % ENTITY_CHUNK_SIZE;
+            EntityBucket bucket = chunk[slot];
+            if (bucket == null) {
+                bucket = new EntityBucket(instruction.getEntity(), this.epoch);
+                chunk[slot] = bucket;
+                ++this.entityCount;
+            } else if (bucket.epoch != this.epoch) {
+                bucket = new EntityBucket(bucket, this.epoch);
+                chunk[slot] = bucket;
+            }
+
+            return bucket;
+        }
+
+        /**
+         * Get a chunk of entities to add to, adding it when it is new and copying it when it is shared
+         * with an older index.
+         * @param index The index of the chunk.
+         * @return The chunk.
+         */
+        private EntityBucket[] getWritableChunk(int index) {
+            if (index >= this.chunks.length) {
+                int length = Math.max(index + 1, this.chunks.length * 2);
+                this.chunks = Arrays.copyOf(this.chunks, length);
+                this.chunkEpochs = Arrays.copyOf(this.chunkEpochs, length);
+            }
+
+            EntityBucket[] chunk = this.chunks[index];
+            if (chunk == null || this.chunkEpochs[index] != this.epoch) {
+                chunk = chunk == null ? new EntityBucket[ENTITY_CHUNK_SIZE] : chunk.clone();
+                this.chunks[index] = chunk;
+                this.chunkEpochs[index] = this.epoch;
+            }
+
+            return chunk;
+        }
+    }
+}
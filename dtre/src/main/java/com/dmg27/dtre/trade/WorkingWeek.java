@@ -0,0 +1,465 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.util.Util;
+import java.time.DayOfWeek;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents the relationship between currency and working weeks.
+ * @author douglasmcgee
+ */
+final public class WorkingWeek {
+    /**
+     * Demo currency codes for Sunday to Thursday working week.
+     */
+    static final String CURRENCY_CODE_AED = "AED";
+    static final String CURRENCY_CODE_SAR = "SAR";
+    
+    /**
+     * Demo Sunday to Thursday working week.
+     */
+    static final List<DayOfWeek> SUNDAY_TO_THURSDAY = Arrays.asList(
+        new DayOfWeek [] {
+            DayOfWeek.SUNDAY,
+            DayOfWeek.MONDAY,
+            DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY,
+            DayOfWeek.THURSDAY
+        }
+    );
+    
+    /**
+     * Demo currency to working week map.
+     */
+    static final Map<String, List<DayOfWeek>> CURRENCY_TO_WORKING_WEEK_MAP = new HashMap<>();
+    static {
+        CURRENCY_TO_WORKING_WEEK_MAP.put(CURRENCY_CODE_AED, SUNDAY_TO_THURSDAY);
+        CURRENCY_TO_WORKING_WEEK_MAP.put(CURRENCY_CODE_SAR, SUNDAY_TO_THURSDAY);
+    };
+    
+    /**
+     * Demo working week.
+     */
+    public static final WorkingWeek DEMO_WORKING_WEEK = new WorkingWeek(CURRENCY_TO_WORKING_WEEK_MAP);
+    
+    /**
+     * The key for the default working week.
+     */
+    private static final String DEFAULT_CURRENCY = "default";
+    
+    /**
+     * The mask of a working week with every day a working day.
+     */
+    private static final int ALL_DAYS_MASK = (1 << 7) - 1;
+    
+    /**
+     * The most days a joint working date may be rolled past the input date.
+     */
+    static final int MAX_JOINT_ROLL_DAYS = 366;
+    
+    /**
+     * Collection of working weeks keyed on currency.
+     */
+    private Map<String, List<DayOfWeek>> workingWeeks;
+    
+    /**
+     * The compiled working week for every currency, indexed by {@link Util#currencyId(String)}, including
+     * those with the default working week.
+     */
+    private CompiledWeek[] compiledWeeks;
+    
+    /**
+     * The compiled default working week.
+     */
+    private CompiledWeek defaultWeek;
+    
+    /**
+     * Create an instance of the {@link WorkingWeek} class.
+     * <p>
+     * Note populates the working weeks with a default working week and
+     * with working weeks for currencies AED and SAR.
+     * </p>
+     */
+    public WorkingWeek() {
+        List<DayOfWeek> mondayToFriday = Arrays.asList(
+            new DayOfWeek [] {
+                DayOfWeek.MONDAY,
+                DayOfWeek.TUESDAY,
+                DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY,
+                DayOfWeek.FRIDAY
+            }
+        );
+        this.workingWeeks = new HashMap<>();
+        this.workingWeeks.put(DEFAULT_CURRENCY, mondayToFriday);
+        this.compile(new HolidayCalendar(), LocalDate.MIN, LocalDate.MIN);
+    }
+        
+    /**
+     * Create an instance of the {@link WorkingWeek} class.
+     * @param workingWeeks The working weeks map keyed on currency.
+     * @throws DtreException When working weeks map is null or empty.
+     */
+    public WorkingWeek(Map<String, List<DayOfWeek>> workingWeeks) {
+        this();
+        if (workingWeeks.isEmpty()) {
+            throw new DtreException("empty currency to work weeks map in WorkingWeek constructor");
+        }
+        
+        this.workingWeeks.putAll(workingWeeks);
+        this.compile(new HolidayCalendar(), LocalDate.MIN, LocalDate.MIN);
+    }
+    
+    /**
+     * Create an instance of the {@link WorkingWeek} class with the working weeks of another and holidays.
+     * @param other The other instance.
+     * @param holidays The holidays.
+     * @param firstDay The first day of the range of the holiday lookup tables.
+     * @param lastDay The last day of the range of the holiday lookup tables.
+     */
+    private WorkingWeek(WorkingWeek other, HolidayCalendar holidays, LocalDate firstDay, LocalDate lastDay) {
+        this.workingWeeks = other.workingWeeks;
+        this.compile(holidays, firstDay, lastDay);
+    }
+    
+    /**
+     * Create a working week that also skips holidays.
+     * <p>
+     * The next working day is precomputed for every day in the years covered, so
+     * {@link #getWorkingDate(String, LocalDate)} is a lookup for those years and
+     * a search from day to day outside them.
+     * </p>
+     * @param holidays The holidays.
+     * @param firstYear The first year covered by lookup tables.
+     * @param lastYear The last year covered by lookup tables.
+     * @return The working week with holidays.
+     * @throws DtreException When the holidays are null or the years are out of order.
+     */
+    public WorkingWeek withHolidays(HolidayCalendar holidays, int firstYear, int lastYear) {
+        if (holidays == null) {
+            throw new DtreException("null holidays in WorkingWeek withHolidays");
+        }
+        
+        if (lastYear < firstYear) {
+            throw new DtreException(MessageFormat.format("last year {0} before first year {1} in WorkingWeek withHolidays",
+                String.valueOf(lastYear), String.valueOf(firstYear)));
+        }
+        
+        return new WorkingWeek(this, holidays, LocalDate.of(firstYear, 1, 1), LocalDate.of(lastYear, 12, 31));
+    }
+    
+    /**
+     * Compile the working weeks and holidays into a lookup table for every currency code,
+     * sharing one compiled week between currencies with the same working week and no holidays.
+     * @param holidays The holidays.
+     * @param firstDay The first day of the range of the holiday lookup tables.
+     * @param lastDay The last day of the range of the holiday lookup tables.
+     * @throws DtreException When a working week has no working days.
+     */
+    private void compile(HolidayCalendar holidays, LocalDate firstDay, LocalDate lastDay) {
+        Map<List<DayOfWeek>, CompiledWeek> compiled = new HashMap<>();
+        for (List<DayOfWeek> workingWeek : this.workingWeeks.values()) {
+            compiled.computeIfAbsent(workingWeek, CompiledWeek::new);
+        }
+        
+        this.defaultWeek = compiled.get(this.workingWeeks.get(DEFAULT_CURRENCY));
+        this.compiledWeeks = new CompiledWeek[Util.getCurrencyCount()];
+        Arrays.fill(this.compiledWeeks, this.defaultWeek);
+        
+        // A working week for an invalid currency code can never be used, so is left out.
+        for (Map.Entry<String, List<DayOfWeek>> entry : this.workingWeeks.entrySet()) {
+            int currencyId = Util.findCurrencyId(entry.getKey());
+            if (currencyId != Util.NO_CURRENCY_ID) {
+                this.compiledWeeks[currencyId] = compiled.get(entry.getValue());
+            }
+        }
+        
+        for (String currencyCode : holidays.getCurrencyCodes()) {
+            int currencyId = Util.currencyId(currencyCode);
+            this.compiledWeeks[currencyId] = new CompiledCalendar(this.compiledWeeks[currencyId],
+                holidays.getHolidays(currencyCode), firstDay, lastDay);
+        }
+    }
+    
+    /**
+     * Get the date of the working day for the currency code and the input date, adjusting
+     * for the next working day when the date is not a working day.
+     * @param currencyCode The currency code.
+     * @param date the input date
+     * @return The date of the next working day, or the input date if it is the date of a working day.
+     */
+    public LocalDate getWorkingDate(String currencyCode, LocalDate date) {
+        return this.getCompiledWeek(currencyCode).getWorkingDate(date);
+    }
+    
+    /**
+     * Get the date of the working day for the currency and the input date, adjusting
+     * for the next working day when the date is not a working day.
+     * @param currencyId The id of the currency, as given by {@link Util#currencyId(String)}.
+     * @param date the input date
+     * @return The date of the next working day, or the input date if it is the date of a working day.
+     * @throws DtreException When there is no currency with the id.
+     */
+    LocalDate getWorkingDate(int currencyId, LocalDate date) {
+        if (currencyId < 0 || currencyId >= this.compiledWeeks.length) {
+            throw new DtreException(MessageFormat.format("invalid currency id {0}", String.valueOf(currencyId)));
+        }
+        
+        return this.compiledWeeks[currencyId].getWorkingDate(date);
+    }
+    
+    /**
+     * Get the date of the first day on or after the input date that is a working day for all the currencies,
+     * for example for the settlement of an exchange of one currency for another.
+     * @param date The input date.
+     * @param currencyCodes The currency codes.
+     * @return The date of the next joint working day, or the input date if it is a working day for all.
+     * @throws DtreException When there is a problem with a currency code, or the currencies have no joint
+     * working day.
+     */
+    public LocalDate getJointWorkingDate(LocalDate date, String... currencyCodes) {
+        CompiledWeek[] compiledWeeks = new CompiledWeek[currencyCodes.length];
+        int jointMask = ALL_DAYS_MASK;
+        for (int i = 0; i < currencyCodes.length; i++) {
+            compiledWeeks[i] = this.getCompiledWeek(currencyCodes[i]);
+            jointMask &= compiledWeeks[i].mask;
+        }
+        
+        if (jointMask == 0) {
+            throw new DtreException(MessageFormat.format("no joint working day of the week for currencies {0}",
+                String.join(", ", currencyCodes)));
+        }
+        
+        // Roll for each currency in turn until no currency rolls the date, which holidays may prevent.
+        LocalDate workingDate = date;
+        LocalDate lastDate = date.plusDays(MAX_JOINT_ROLL_DAYS);
+        int unrolled = 0;
+        for (int i = 0; unrolled < compiledWeeks.length; i = (i + 1) % compiledWeeks.length) {
+            LocalDate rolledDate = compiledWeeks[i].getWorkingDate(workingDate);
+            unrolled = rolledDate.equals(workingDate) ? unrolled + 1 : 1;
+            workingDate = rolledDate;
+            if (workingDate.isAfter(lastDate)) {
+                throw new DtreException(MessageFormat.format("no joint working day within {0} days of {1} for currencies {2}",
+                    String.valueOf(MAX_JOINT_ROLL_DAYS), date, String.join(", ", currencyCodes)));
+            }
+        }
+        
+        return workingDate;
+    }
+    
+    /**
+     * Check if the date is a working day for the currency code.
+     * @param currencyCode The currency code.
+     * @param date The date.
+     * @return True when the date is a working day.
+     */
+    public boolean isWorkingDay(String currencyCode, LocalDate date) {
+        return this.getCompiledWeek(currencyCode).isWorkingDay(date);
+    }
+    
+    /**
+     * Get the compiled working week for the currency code.
+     * @param currencyCode The currency code.
+     * @return The compiled working week.
+     * @throws DtreException When there is a problem with the currency code.
+     */
+    private CompiledWeek getCompiledWeek(String currencyCode) {
+        return this.compiledWeeks[Util.currencyId(currencyCode)];
+    }
+    
+    /**
+     * Get the working week for the currency code.
+     * @param currencyCode The currency code.
+     * @return The working week.
+     */
+    List<DayOfWeek> getWorkingWeek(String currencyCode) {
+        Util.validateCurrencyCode(currencyCode);
+        List<DayOfWeek> workingWeek = this.workingWeeks.get(currencyCode);
+        return workingWeek == null ? this.workingWeeks.get(DEFAULT_CURRENCY) : workingWeek;
+    }
+    
+    /**
+     * Get the next working day for the currency code.
+     * @param currencyCode The currency code.
+     * @return The next working day.
+     */
+    DayOfWeek getFirstWorkingDayOfWeek(String currencyCode) {
+        Util.validateCurrencyCode(currencyCode);
+        return this.getWorkingWeek(currencyCode).get(0);
+    }
+    
+    /**
+     * A working week compiled to a bitmask of working days and, for each day of the week,
+     * the number of days to the next working day.
+     */
+    private static class CompiledWeek {
+        
+        /**
+         * The working days, bit n set for the day of the week with ordinal n.
+         */
+        final int mask;
+        
+        /**
+         * The number of days from each day of the week to the next working day, zero for a working day.
+         */
+        final int[] daysToWorkingDay = new int[7];
+        
+        /**
+         * Compile a working week.
+         * @param workingWeek The working days.
+         * @throws DtreException When there are no working days.
+         */
+        CompiledWeek(List<DayOfWeek> workingWeek) {
+            int workingDays = 0;
+            for (DayOfWeek dayOfWeek : workingWeek) {
+                workingDays |= 1 << dayOfWeek.ordinal();
+            }
+            
+            if (workingDays == 0) {
+                throw new DtreException("a working week with no working days in WorkingWeek constructor");
+            }
+            
+            this.mask = workingDays;
+            for (int day = 0; day < 7; day++) {
+                int days = 0;
+                while ((workingDays & (1 << ((day + days) % 7))) == 0) {
+                    ++days;
+                }
+                
+                this.daysToWorkingDay[day] = days;
+            }
+        }
+        
+        /**
+         * Compile a working week from another.
+         * @param other The other compiled working week.
+         */
+        CompiledWeek(CompiledWeek other) {
+            this.mask = other.mask;
+            System.arraycopy(other.daysToWorkingDay, 0, this.daysToWorkingDay, 0, this.daysToWorkingDay.length);
+        }
+        
+        /**
+         * Get the date of the working day for the input date.
+         * @param date The input date.
+         * @return The date of the next working day, or the input date if it is the date of a working day.
+         */
+        LocalDate getWorkingDate(LocalDate date) {
+            int days = this.daysToWorkingDay[date.getDayOfWeek().ordinal()];
+            return days == 0 ? date : date.plusDays(days);
+        }
+        
+        /**
+         * Check if the date is a working day.
+         * @param date The date.
+         * @return True when the date is a working day.
+         */
+        boolean isWorkingDay(LocalDate date) {
+            return (this.mask & (1 << date.getDayOfWeek().ordinal())) != 0;
+        }
+    }
+    
+    /**
+     * A working week with holidays compiled to the number of days to the next working day
+     * for each day of a range of days.
+     */
+    private static final class CompiledCalendar extends CompiledWeek {
+        
+        /**
+         * The holidays.
+         */
+        private final Set<LocalDate> holidays;
+        
+        /**
+         * The epoch day of the first day of the range.
+         */
+        private final long firstEpochDay;
+        
+        /**
+         * The number of days from each day of the range to the next working day, zero for a working day.
+         */
+        private final int[] daysToBusinessDay;
+        
+        /**
+         * Compile a working week with holidays.
+         * @param compiledWeek The compiled working week.
+         * @param holidays The holidays.
+         * @param firstDay The first day of the range.
+         * @param lastDay The last day of the range.
+         */
+        CompiledCalendar(CompiledWeek compiledWeek, Set<LocalDate> holidays, LocalDate firstDay, LocalDate lastDay) {
+            super(compiledWeek);
+            this.holidays = new HashSet<>(holidays);
+            this.firstEpochDay = firstDay.toEpochDay();
+            this.daysToBusinessDay = new int[(int) (lastDay.toEpochDay() - this.firstEpochDay + 1)];
+            
+            // Fill backwards, each day a holiday or weekend being one more than the day after.
+            int last = this.daysToBusinessDay.length - 1;
+            this.daysToBusinessDay[last] = (int) (this.searchWorkingDate(lastDay).toEpochDay() - lastDay.toEpochDay());
+            LocalDate date = lastDay;
+            for (int i = last - 1; i >= 0; i--) {
+                date = date.minusDays(1);
+                this.daysToBusinessDay[i] = this.isBusinessDay(date) ? 0 : this.daysToBusinessDay[i + 1] + 1;
+            }
+        }
+        
+        @Override
+        LocalDate getWorkingDate(LocalDate date) {
+            long index = date.toEpochDay() - this.firstEpochDay;
+            if (index < 0 || index >= this.daysToBusinessDay.length) {
+                return this.searchWorkingDate(date);
+            }
+            
+            int days = this.daysToBusinessDay[(int) index];
+            return days == 0 ? date : date.plusDays(days);
+        }
+        
+        @Override
+        boolean isWorkingDay(LocalDate date) {
+            long index = date.toEpochDay() - this.firstEpochDay;
+            if (index < 0 || index >= this.daysToBusinessDay.length) {
+                return this.isBusinessDay(date);
+            }
+            
+            return this.daysToBusinessDay[(int) index] == 0;
+        }
+        
+        /**
+         * Search from day to day for the working day for the input date.
+         * @param date The input date.
+         * @return The date of the next working day, or the input date if it is the date of a working day.
+         */
+        private LocalDate searchWorkingDate(LocalDate date) {
+            LocalDate workingDate = super.getWorkingDate(date);
+            while (this.holidays.contains(workingDate)) {
+                workingDate = super.getWorkingDate(workingDate.plusDays(1));
+            }
+            
+            return workingDate;
+        }
+        
+        /**
+         * Check if a date is in the working week and not a holiday.
+         * @param date The date.
+         * @return True when the date is a working day.
+         */
+        private boolean isBusinessDay(LocalDate date) {
+            return super.isWorkingDay(date) && !this.holidays.contains(date);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class keeps the first N of the elements offered to it in an order, without sorting them all.
+ * <p>
+ * The elements kept are held in a heap with the last of them at its head, so offering an element
+ * costs O(log N) and finding the first N of M elements costs O(M log N) rather than O(M log M).
+ * Of elements that are equal in the order, those offered first are kept and come first.
+ * The class is not thread safe.
+ * </p>
+ * @param <T> The type of the elements.
+ * @author douglasmcgee
+ */
+final public class BoundedHeap<T> {
+
+    /**
+     * The number of elements to keep.
+     */
+    private final int limit;
+
+    /**
+     * The order of the elements.
+     */
+    private final Comparator<? super T> order;
+
+    /**
+     * The elements kept, the last in order at the head.
+     */
+    private final PriorityQueue<Entry<T>> heap;
+
+    /**
+     * The number of elements offered, used to keep the first offered of equal elements.
+     */
+    private long offered;
+
+    /**
+     * Create an instance of the {@link BoundedHeap} class.
+     * @param limit The number of elements to keep.
+     * @param order The order of the elements.
+     * @throws DtreException When the limit is negative.
+     */
+    public BoundedHeap(int limit, Comparator<? super T> order) {
+        if (limit < 0) {
+            throw new DtreException(MessageFormat.format("invalid limit {0}", String.valueOf(limit)));
+        }
+
+        this.limit = limit;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 1 << 10)), (a, b) -> this.compare(b, a));
+    }
+
+    /**
+     * Offer an element, which is kept when it is among the first in order of those offered.
+     * @param element The element.
+     * @return True when the element is kept, for now.
+     */
+    public boolean offer(T element) {
+        Entry<T> entry = new Entry<>(element, this.offered++);
+        if (this.heap.size() < this.limit) {
+            this.heap.add(entry);
+            return true;
+        }
+
+        if (this.limit == 0 || this.compare(entry, this.heap.peek()) >= 0) {
+            return false;
+        }
+
+        this.heap.poll();
+        this.heap.add(entry);
+        return true;
+    }
+
+    /**
+     * @return The number of elements kept.
+     */
+    public int size() {
+        return this.heap.size();
+    }
+
+    /**
+     * @return The elements kept, in order.
+     */
+    public List<T> toList() {
+        List<Entry<T>> entries = new ArrayList<>(this.heap);
+        entries.sort(this::compare);
+        List<T> elements = new ArrayList<>(entries.size());
+        entries.forEach(entry -> elements.add(entry.element));
+        return Collections.unmodifiableList(elements);
+    }
+
+    private int compare(Entry<T> a, Entry<T> b) {
+        int compare = this.order.compare(a.element, b.element);
+        return compare != 0 ? compare : Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * An element and when it was offered.
+     */
+    private static final class Entry<T> {
+
+        final T element;
+
+        final long sequence;
+
+        Entry(T element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+}
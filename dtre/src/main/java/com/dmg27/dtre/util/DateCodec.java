@@ -0,0 +1,243 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * This class parses and formats dates in the project's "dd MMM uuuu" form, for example "01 Jan 2018".
+ * <p>
+ * Dates of exactly that form are parsed directly from chars or bytes to an epoch day, resolving a day
+ * beyond the end of the month to the last day of the month as {@link java.time.format.ResolverStyle#SMART}
+ * does, and anything else is left to {@link #FORMAT}, so the same dates are accepted as by the formatter.
+ * Month names are the English abbreviations "Jan" to "Dec".
+ * </p>
+ * <p>
+ * The few distinct dates in a day's trades are parsed and formatted over and over, so the most recently
+ * used dates and their text are kept in a small cache. The class is thread safe.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class DateCodec {
+
+    /**
+     * The formatter for the date format.
+     */
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd MMM uuuu", Locale.ENGLISH);
+
+    /**
+     * The epoch day returned for text that is not a date of exactly the "dd MMM uuuu" form.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * The length of a "dd MMM uuuu" date.
+     */
+    private static final int LENGTH = 11;
+
+    /**
+     * The English month abbreviations.
+     */
+    private static final String[] MONTH_NAMES = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    /**
+     * The English month abbreviations, packed as three bytes.
+     */
+    private static final int[] MONTHS = new int[MONTH_NAMES.length];
+    static {
+        for (int i = 0; i < MONTH_NAMES.length; i++) {
+            MONTHS[i] = pack(MONTH_NAMES[i].charAt(0), MONTH_NAMES[i].charAt(1), MONTH_NAMES[i].charAt(2));
+        }
+    }
+
+    /**
+     * The number of cached dates, a power of two.
+     */
+    private static final int CACHE_SIZE = 1 << 8;
+
+    /**
+     * The cached dates, indexed by the low bits of their epoch days. Entries are immutable, so a
+     * race between threads at worst loses an entry.
+     */
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private DateCodec() {
+    }
+
+    /**
+     * Parse a date.
+     * @param text The text.
+     * @return The date.
+     * @throws DateTimeParseException When the text is not a date.
+     */
+    public static LocalDate parse(CharSequence text) {
+        long epochDay = parseEpochDay(text, 0, text.length());
+        return epochDay == NO_DATE ? LocalDate.parse(text, FORMAT) : toDate(epochDay);
+    }
+
+    /**
+     * Parse a date of exactly the "dd MMM uuuu" form from chars.
+     * @param text The text.
+     * @param start The index of the first char.
+     * @param end The index after the last char.
+     * @return The epoch day, or {@link #NO_DATE} when the chars are not such a date.
+     */
+    public static long parseEpochDay(CharSequence text, int start, int end) {
+        if (end - start != LENGTH || text.charAt(start + 2) != ' ' || text.charAt(start + 6) != ' ') {
+            return NO_DATE;
+        }
+
+        int day = digit(text.charAt(start)) * 10 + digit(text.charAt(start + 1));
+        int year = ((digit(text.charAt(start + 7)) * 10 + digit(text.charAt(start + 8))) * 10
+            + digit(text.charAt(start + 9))) * 10 + digit(text.charAt(start + 10));
+        return resolveEpochDay(day, pack(text.charAt(start + 3), text.charAt(start + 4), text.charAt(start + 5)), year);
+    }
+
+    /**
+     * Parse a date of exactly the "dd MMM uuuu" form from ASCII bytes.
+     * @param buffer The buffer.
+     * @param start The index of the first byte.
+     * @param end The index after the last byte.
+     * @return The epoch day, or {@link #NO_DATE} when the bytes are not such a date.
+     */
+    public static long parseEpochDay(ByteBuffer buffer, int start, int end) {
+        if (end - start != LENGTH || buffer.get(start + 2) != ' ' || buffer.get(start + 6) != ' ') {
+            return NO_DATE;
+        }
+
+        int day = digit(buffer.get(start)) * 10 + digit(buffer.get(start + 1));
+        int year = ((digit(buffer.get(start + 7)) * 10 + digit(buffer.get(start + 8))) * 10
+            + digit(buffer.get(start + 9))) * 10 + digit(buffer.get(start + 10));
+        return resolveEpochDay(day, pack(buffer.get(start + 3) & 0xff, buffer.get(start + 4) & 0xff, buffer.get(start + 5) & 0xff), year);
+    }
+
+    /**
+     * Get the date for an epoch day, sharing the instance for recently used dates.
+     * @param epochDay The epoch day.
+     * @return The date.
+     */
+    public static LocalDate toDate(long epochDay) {
+        return entry(epochDay).date;
+    }
+
+    /**
+     * Format a date.
+     * @param date The date.
+     * @return The text of the date.
+     */
+    public static String format(LocalDate date) {
+        return entry(date.toEpochDay()).text;
+    }
+
+    /**
+     * Get the cache entry for an epoch day, replacing the cached entry when it is for another day.
+     * @param epochDay The epoch day.
+     * @return The entry.
+     */
+    private static Entry entry(long epochDay) {
+        int index = (int) epochDay & (CACHE_SIZE - 1);
+        Entry entry = CACHE[index];
+        if (entry == null || entry.epochDay != epochDay) {
+            entry = new Entry(epochDay);
+            CACHE[index] = entry;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Resolve the epoch day of a parsed date.
+     * @param day The day of the month, resolved to the last day of the month when beyond it.
+     * @param month The packed name of the month.
+     * @param year The year.
+     * @return The epoch day, or {@link #NO_DATE} when the day, month or year is bad.
+     */
+    private static long resolveEpochDay(int day, int month, int year) {
+        int monthNumber = 1;
+        while (monthNumber <= MONTHS.length && MONTHS[monthNumber - 1] != month) {
+            ++monthNumber;
+        }
+
+        if (day < 1 || day > 31 || year < 0 || monthNumber > MONTHS.length) {
+            return NO_DATE;
+        }
+
+        return epochDay(year, monthNumber, Math.min(day, lengthOfMonth(year, monthNumber)));
+    }
+
+    /**
+     * Get the epoch day of a valid date in the proleptic Gregorian calendar.
+     * @param year The year, not negative.
+     * @param month The month, from 1 to 12.
+     * @param day The day of the month.
+     * @return The epoch day.
+     */
+    static long epochDay(int year, int month, int day) {
+        // Count from 1 March so that the leap day is the last day of the year.
+        int marchYear = month <= 2 ? year - 1 : year;
+        long era = (marchYear >= 0 ? marchYear : marchYear - 399) / 400;
+        long yearOfEra = marchYear - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @return The value of a digit, or a large negative value when not a digit so that a number
+     * with a non digit is negative.
+     */
+    private static int digit(int c) {
+        return c >= '0' && c <= '9' ? c - '0' : -100000;
+    }
+
+    private static int pack(int c0, int c1, int c2) {
+        return (c0 << 16) | (c1 << 8) | c2;
+    }
+
+    /**
+     * A cached date and its text.
+     */
+    private static final class Entry {
+
+        final long epochDay;
+
+        final LocalDate date;
+
+        final String text;
+
+        Entry(long epochDay) {
+            this.epochDay = epochDay;
+            this.date = LocalDate.ofEpochDay(epochDay);
+            int year = this.date.getYear();
+            if (year < 0 || year > 9999) {
+                this.text = this.date.format(FORMAT);
+                return;
+            }
+
+            int day = this.date.getDayOfMonth();
+            String month = MONTH_NAMES[this.date.getMonthValue() - 1];
+            this.text = new String(new char[] {
+                (char) ('0' + day / 10), (char) ('0' + day % 10), ' ',
+                month.charAt(0), month.charAt(1), month.charAt(2), ' ',
+                (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10), (char) ('0' + year / 10 % 10), (char) ('0' + year % 10)
+            });
+        }
+    }
+}
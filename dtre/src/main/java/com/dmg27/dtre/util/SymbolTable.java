@@ -0,0 +1,131 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class interns strings, giving each distinct string a small int id, in order of first appearance,
+ * and a single canonical instance.
+ * <p>
+ * Symbols are never removed, so a table is meant for strings drawn from a small set, such as entities or
+ * currency codes. Looking up a known symbol does not lock, so a table may be shared by threads.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class SymbolTable {
+
+    /**
+     * The id returned by {@link #find(String)} for an unknown symbol.
+     */
+    public static final int NO_ID = -1;
+
+    /**
+     * The initial capacity.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    /**
+     * The ids of the symbols.
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The symbols by id, replaced when it grows. A symbol is stored before its id is published.
+     */
+    private volatile String[] symbols = new String[INITIAL_CAPACITY];
+
+    /**
+     * The number of symbols.
+     */
+    private volatile int size;
+
+    /**
+     * Get the id of a symbol, adding it when it is new.
+     * @param symbol The symbol.
+     * @return The id.
+     * @throws DtreException When the symbol is null.
+     */
+    public int id(String symbol) {
+        Integer id = symbol == null ? null : this.ids.get(symbol);
+        return id == null ? this.add(symbol) : id;
+    }
+
+    /**
+     * Get the id of a symbol without adding it.
+     * @param symbol The symbol.
+     * @return The id, or {@link #NO_ID} when the symbol is unknown or null.
+     */
+    public int find(String symbol) {
+        Integer id = symbol == null ? null : this.ids.get(symbol);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Get the symbol with an id.
+     * @param id The id.
+     * @return The canonical instance of the symbol.
+     * @throws IndexOutOfBoundsException When there is no symbol with the id.
+     */
+    public String symbol(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException(Integer.toString(id));
+        }
+
+        return this.symbols[id];
+    }
+
+    /**
+     * Get the canonical instance of a symbol, adding it when it is new.
+     * @param symbol The symbol.
+     * @return The canonical instance.
+     * @throws DtreException When the symbol is null.
+     */
+    public String intern(String symbol) {
+        return this.symbol(this.id(symbol));
+    }
+
+    /**
+     * @return The number of symbols.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Add a symbol unless another thread has added it first.
+     * @param symbol The symbol.
+     * @return The id.
+     * @throws DtreException When the symbol is null.
+     */
+    private synchronized int add(String symbol) {
+        if (symbol == null) {
+            throw new DtreException("null symbol");
+        }
+
+        Integer id = this.ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = this.size;
+        String[] current = this.symbols;
+        if (newId == current.length) {
+            current = Arrays.copyOf(current, newId * 2);
+        }
+
+        current[newId] = symbol;
+        this.symbols = current;
+        this.size = newId + 1;
+        this.ids.put(symbol, newId);
+        return newId;
+    }
+}
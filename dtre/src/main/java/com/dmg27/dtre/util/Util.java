@@ -0,0 +1,171 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+
+/**
+ * Utility methods.
+ * <p>
+ * Currency codes are looked up in a table precomputed from the available currencies, indexed by a
+ * perfect hash of the three letters of the code, so validating a code neither allocates nor throws
+ * when the code is valid. Each currency has an id, its position in the available currencies sorted by
+ * code, which is small and stable for a given Java runtime.
+ * </p>
+ * @author douglasmcgee
+ */
+final public class Util {
+
+    /**
+     * The id returned by {@link #findCurrencyId(String)} for a code that is not a currency code.
+     */
+    public static final int NO_CURRENCY_ID = -1;
+
+    /**
+     * The number of letters in a currency code.
+     */
+    private static final int CODE_LENGTH = 3;
+
+    /**
+     * The number of letters a currency code may be made of, 'A' to 'Z'.
+     */
+    private static final int LETTERS = 26;
+
+    /**
+     * The available currencies by id.
+     */
+    private static final Currency[] CURRENCIES;
+
+    /**
+     * The currency codes by id.
+     */
+    private static final String[] CURRENCY_CODES;
+
+    /**
+     * The ids of the currencies keyed on the hash of their codes, {@link #NO_CURRENCY_ID} when there is no currency.
+     */
+    private static final short[] CURRENCY_IDS = new short[LETTERS * LETTERS * LETTERS];
+
+    static {
+        CURRENCIES = Currency.getAvailableCurrencies().stream()
+            .filter(c -> hash(c.getCurrencyCode()) >= 0)
+            .sorted(Comparator.comparing(Currency::getCurrencyCode))
+            .toArray(Currency[]::new);
+        CURRENCY_CODES = new String[CURRENCIES.length];
+        Arrays.fill(CURRENCY_IDS, (short) NO_CURRENCY_ID);
+        for (int id = 0; id < CURRENCIES.length; id++) {
+            CURRENCY_CODES[id] = CURRENCIES[id].getCurrencyCode();
+            CURRENCY_IDS[hash(CURRENCY_CODES[id])] = (short) id;
+        }
+    }
+
+    /**
+     * Get the currency represented by the currency code.
+     * @param currencyCode The currency code.
+     * @return  The currency.
+     * @throws DtreException When there is a problem with the currency code.
+     */
+    static public Currency currencyOf(String currencyCode) {
+        return CURRENCIES[currencyId(currencyCode)];
+    }
+
+    /**
+     * Validate the currency code.
+     * @param currencyCode The currency code.
+     * @throws DtreException When there is a problem with the currency code.
+     */
+    static public void validateCurrencyCode(String currencyCode) {
+        currencyId(currencyCode);
+    }
+
+    /**
+     * Check if a code is a currency code.
+     * @param code The code.
+     * @return True when the code is a currency code.
+     */
+    static public boolean isCurrencyCode(String code) {
+        return findCurrencyId(code) != NO_CURRENCY_ID;
+    }
+
+    /**
+     * Get the id of the currency represented by the currency code.
+     * @param currencyCode The currency code.
+     * @return The id, from zero to one less than {@link #getCurrencyCount()}.
+     * @throws DtreException When there is a problem with the currency code.
+     */
+    static public int currencyId(String currencyCode) {
+        if (currencyCode == null) {
+            throw new DtreException("null currency code");
+        }
+
+        int id = findCurrencyId(currencyCode);
+        if (id == NO_CURRENCY_ID) {
+            throw new DtreException(MessageFormat.format("invalid currency code \"{0}\"", currencyCode));
+        }
+
+        return id;
+    }
+
+    /**
+     * Get the id of the currency represented by a code.
+     * @param code The code.
+     * @return The id, or {@link #NO_CURRENCY_ID} when the code is null or not a currency code.
+     */
+    static public int findCurrencyId(String code) {
+        int hash = hash(code);
+        return hash < 0 ? NO_CURRENCY_ID : CURRENCY_IDS[hash];
+    }
+
+    /**
+     * Get the currency code for an id.
+     * @param currencyId The id.
+     * @return The currency code.
+     * @throws DtreException When there is no currency with the id.
+     */
+    static public String currencyCode(int currencyId) {
+        if (currencyId < 0 || currencyId >= CURRENCY_CODES.length) {
+            throw new DtreException(MessageFormat.format("invalid currency id {0}", String.valueOf(currencyId)));
+        }
+
+        return CURRENCY_CODES[currencyId];
+    }
+
+    /**
+     * @return The number of currencies, one more than the highest currency id.
+     */
+    static public int getCurrencyCount() {
+        return CURRENCY_CODES.length;
+    }
+
+    /**
+     * Hash a code of three letters from 'A' to 'Z' to a distinct number.
+     * @param code The code.
+     * @return The hash, or -1 when the code is null or not three such letters.
+     */
+    private static int hash(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+
+        int hash = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+
+            hash = hash * LETTERS + letter;
+        }
+
+        return hash;
+    }
+}
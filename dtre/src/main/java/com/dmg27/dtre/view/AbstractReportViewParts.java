@@ -8,6 +8,7 @@
 package com.dmg27.dtre.view;
 
 import com.dmg27.dtre.trade.Trades;
+import java.io.IOException;
 import java.time.LocalDate;
 
 
@@ -20,6 +21,7 @@ import java.time.LocalDate;
  * <li>One total trades row per day</li>
  * <li>A footer</li>
  * </ul>
+ * Each part is written straight to an output, so a view is never held in memory as a whole.
  * 
  * @author Douglas McGee (dmg27i@gmail.com)
  */
@@ -51,20 +53,26 @@ abstract public class AbstractReportViewParts {
     }
     
     /**
-     * Create the view header.
+     * Write the view header.
      * @param from The view period start.
      * @param to The view period end.
-     * @return The view header.
+     * @param out The output.
+     * @throws IOException When the output fails.
      */
-    abstract String header(LocalDate from, LocalDate to);
+    abstract void header(LocalDate from, LocalDate to, Appendable out) throws IOException;
     
     /**
-     * @return A row for the view.
+     * Write the rows for a day of the view.
+     * @param date The day.
+     * @param out The output.
+     * @throws IOException When the output fails.
      */
-    abstract String tradesPerDay(LocalDate date);
+    abstract void tradesPerDay(LocalDate date, Appendable out) throws IOException;
     
     /**
-     * @return The view footer.
+     * Write the view footer.
+     * @param out The output.
+     * @throws IOException When the output fails.
      */
-    abstract String footer();
+    abstract void footer(Appendable out) throws IOException;
 }
@@ -0,0 +1,189 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precompiled fixed width row, rendered into a reusable buffer.
+ * <p>
+ * The template is text with fields of the form {@code %W.Ws}, right aligned, or {@code %-W.Ws},
+ * left aligned, each value being truncated or padded with spaces to exactly W characters, as
+ * {@link java.util.Formatter} does. A row is rendered by {@link #start()}, then {@link #field(CharSequence)}
+ * for each field in order, then {@link #writeTo(Appendable)}.
+ * </p>
+ * <p>
+ * An instance is not thread safe.
+ * </p>
+ * @author douglasmcgee
+ */
+final class RowTemplate {
+
+    /**
+     * The text before each field, and after the last field.
+     */
+    private final char[][] texts;
+
+    /**
+     * The width of each field.
+     */
+    private final int[] widths;
+
+    /**
+     * Whether each field is left aligned.
+     */
+    private final boolean[] lefts;
+
+    /**
+     * The rendered row.
+     */
+    private final char[] buffer;
+
+    /**
+     * The length of the rendered row so far.
+     */
+    private int length;
+
+    /**
+     * The next field to render.
+     */
+    private int field;
+
+    /**
+     * Compile a template.
+     * @param template The template.
+     * @throws IllegalArgumentException When a field is not of the form {@code %W.Ws} or {@code %-W.Ws}.
+     */
+    RowTemplate(String template) {
+        List<String> textList = new ArrayList<>();
+        List<Integer> widthList = new ArrayList<>();
+        List<Boolean> leftList = new ArrayList<>();
+        int textStart = 0;
+        int i = template.indexOf('%');
+        while (i >= 0) {
+            textList.add(template.substring(textStart, i));
+            int end = template.indexOf('s', i);
+            String spec = end < 0 ? template.substring(i) : template.substring(i + 1, end);
+            boolean left = spec.startsWith("-");
+            String[] widthPrecision = (left ? spec.substring(1) : spec).split("\\.");
+            if (end < 0 || widthPrecision.length != 2 || !widthPrecision[0].equals(widthPrecision[1])
+                    || !widthPrecision[0].matches("[0-9]+")) {
+                throw new IllegalArgumentException(MessageFormat.format("bad field \"{0}\" in row template", spec));
+            }
+
+            widthList.add(Integer.parseInt(widthPrecision[0]));
+            leftList.add(left);
+            textStart = end + 1;
+            i = template.indexOf('%', textStart);
+        }
+
+        textList.add(template.substring(textStart));
+        this.texts = new char[textList.size()][];
+        this.widths = new int[widthList.size()];
+        this.lefts = new boolean[leftList.size()];
+        int rowLength = 0;
+        for (int t = 0; t < this.texts.length; t++) {
+            this.texts[t] = textList.get(t).toCharArray();
+            rowLength += this.texts[t].length;
+        }
+
+        for (int f = 0; f < this.widths.length; f++) {
+            this.widths[f] = widthList.get(f);
+            this.lefts[f] = leftList.get(f);
+            rowLength += this.widths[f];
+        }
+
+        this.buffer = new char[rowLength];
+    }
+
+    /**
+     * Start rendering a row.
+     * @return This template.
+     */
+    RowTemplate start() {
+        this.length = 0;
+        this.field = 0;
+        this.text();
+        return this;
+    }
+
+    /**
+     * Render the next field of the row.
+     * @param value The value of the field.
+     * @return This template.
+     * @throws IllegalStateException When all the fields have been rendered.
+     */
+    RowTemplate field(CharSequence value) {
+        if (this.field == this.widths.length) {
+            throw new IllegalStateException("too many fields for row template");
+        }
+
+        int width = this.widths[this.field];
+        int valueLength = Math.min(value.length(), width);
+        int padding = width - valueLength;
+        if (!this.lefts[this.field]) {
+            this.pad(padding);
+        }
+
+        for (int i = 0; i < valueLength; i++) {
+            this.buffer[this.length++] = value.charAt(i);
+        }
+
+        if (this.lefts[this.field]) {
+            this.pad(padding);
+        }
+
+        ++this.field;
+        this.text();
+        return this;
+    }
+
+    /**
+     * Write the rendered row.
+     * @param out The output.
+     * @throws IOException When the output fails.
+     * @throws IllegalStateException When not all the fields have been rendered.
+     */
+    void writeTo(Appendable out) throws IOException {
+        if (this.field != this.widths.length) {
+            throw new IllegalStateException("too few fields for row template");
+        }
+
+        if (out instanceof Writer) {
+            ((Writer) out).write(this.buffer, 0, this.length);
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(this.buffer, 0, this.length);
+        } else {
+            out.append(CharBuffer.wrap(this.buffer, 0, this.length));
+        }
+    }
+
+    /**
+     * Render the text after the last rendered field.
+     */
+    private void text() {
+        char[] text = this.texts[this.field];
+        System.arraycopy(text, 0, this.buffer, this.length, text.length);
+        this.length += text.length;
+    }
+
+    /**
+     * Render padding.
+     * @param padding The number of spaces.
+     */
+    private void pad(int padding) {
+        for (int i = 0; i < padding; i++) {
+            this.buffer[this.length++] = ' ';
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.view;
+
+import com.dmg27.dtre.trade.DailySummary;
+import com.dmg27.dtre.trade.Trades;
+import com.dmg27.dtre.util.DateCodec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * A textual view of transactions transactions.
+ * 
+ * @author Douglas McGee (dmg27i@gmail.com)
+ */
+public class TextualReportViewParts extends AbstractReportViewParts {
+    
+    /**
+     * A horizontal line for the view.
+     */
+    final private static String BOX_LINE = "==================================================================================";
+    
+    /**
+     * The capitalised names of the days of the week, indexed by ordinal.
+     */
+    final private static String[] DAY_NAMES = new String[DayOfWeek.values().length];
+    static {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            String name = dayOfWeek.toString();
+            DAY_NAMES[dayOfWeek.ordinal()] = name.substring(0, 1) + name.substring(1).toLowerCase();
+        }
+    }
+    
+    /**
+     * The view header.
+     */
+    final private RowTemplate headerRow = new RowTemplate(
+        "Report for period from %-11.11s to %-11.11s" + NL +
+        BOX_LINE + NL +
+        "| Date            | Entity | Total Incoming  | Total Outgoing  | Highest Amount  |" + NL +
+        BOX_LINE + NL);
+    
+    /**
+     * A row of the per entity totals for a day.
+     */
+    final private RowTemplate entityRow = new RowTemplate(
+        "| %3.3s %-11.11s |  %3.3s   | %15.15s | %15.15s | %15.15s |" + NL);
+    
+    /**
+     * The rows of the overall totals for a day.
+     */
+    final private RowTemplate totalsRow = new RowTemplate(
+        "|                 |--------|                 |                 |                 |" + NL +
+        "| %3.3s %-11.11s | totals | %15.15s | %15.15s |                 |" + NL +
+        "|                 |--------|                 |                 |                 |" + NL);
+    
+    /**
+     * Create an instance of {@link TextualReportViewParts}.
+     * @param trades The trades to view.
+     */
+    TextualReportViewParts(Trades trades) {
+        super(trades);
+    }
+
+    @Override
+    void header(LocalDate from, LocalDate to, Appendable out) throws IOException {
+        this.headerRow.start()
+            .field(DateCodec.format(from))
+            .field(DateCodec.format(to))
+            .writeTo(out);
+    }
+    
+    /**
+     * Create the rows for a day of the view.
+     * @param date The day.
+     * @return The rows.
+     */
+    public String tradesPerDay(LocalDate date) {
+        StringBuilder rows = new StringBuilder();
+        try {
+            this.tradesPerDay(date, rows);
+        } catch (IOException ex) {
+            // A StringBuilder does not throw.
+            throw new UncheckedIOException(ex);
+        }
+        
+        return rows.toString();
+    }
+    
+    @Override
+    void tradesPerDay(LocalDate date, Appendable out) throws IOException {
+        String dayOfWeek = DAY_NAMES[date.getDayOfWeek().ordinal()];
+        String dateString = DateCodec.format(date);
+        
+        // Write the per entity totals for the day, one row per entity, ranked by highest settlement amount.
+        DailySummary summary = trades.getDailySummary(date);
+        for (DailySummary.Totals totals : summary.getEntityTotals()) {
+            this.entityRow.start()
+                .field(dayOfWeek)
+                .field(dateString)
+                .field(totals.getEntity().get())
+                .field(totals.getIncoming().toString())
+                .field(totals.getOutgoing().toString())
+                .field(totals.getHighest().toString())
+                .writeTo(out);
+        }
+        
+        // Write the overal totals for the day.
+        this.totalsRow.start()
+            .field(dayOfWeek)
+            .field(dateString)
+            .field(summary.getTotals().getIncoming().toString())
+            .field(summary.getTotals().getOutgoing().toString())
+            .writeTo(out);
+    } 
+
+    @Override
+    void footer(Appendable out) throws IOException {
+        out.append(BOX_LINE);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.view;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.ConcurrentTrades;
+import com.dmg27.dtre.trade.Trades;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * A factory class for creating various views of a trades report.
+ * 
+ * @author Douglas McGee (dmg27i@gmail.com)
+ */
+public class ViewFactory {
+    /**
+     * Create a textual view of the trades.
+     * @param trades The trades for the period.
+     * @param from Start of the report period.
+     * @param to End of report period.
+     * @return The trades view.
+     */
+    static public String textualReportView(Trades trades, LocalDate from, LocalDate to) {
+        StringBuilder sb = new StringBuilder();
+        textualReportView(trades, from, to, sb);
+        return sb.toString();
+    }
+    
+    /**
+     * Write a textual view of the trades. To report on trades that are still being added to, write
+     * a view of a {@link Trades#snapshot()} of them.
+     * @param trades The trades for the period.
+     * @param from Start of the report period.
+     * @param to End of report period.
+     * @param out The output, which is neither flushed nor closed.
+     * @throws DtreException When the output fails.
+     */
+    static public void textualReportView(Trades trades, LocalDate from, LocalDate to, Appendable out) {
+        writeReportView(new TextualReportViewParts(trades), from, to, out);
+    }
+    
+    /**
+     * Write a textual view of a snapshot of concurrent trades, so the view is of a consistent book
+     * however long it takes to write while instructions continue to be added.
+     * @param trades The trades for the period.
+     * @param from Start of the report period.
+     * @param to End of report period.
+     * @param out The output, which is neither flushed nor closed.
+     * @throws DtreException When the output fails.
+     */
+    static public void textualReportView(ConcurrentTrades trades, LocalDate from, LocalDate to, Appendable out) {
+        textualReportView(trades.snapshot(), from, to, out);
+    }
+    
+    /**
+     * Write a view of the trades, a day at a time.
+     * @param viewParts The parts from which to create the type of view required.
+     * @param from Start of the report period.
+     * @param to End of report period.
+     * @param out The output.
+     * @throws DtreException When the output fails.
+     */
+    private static void writeReportView(AbstractReportViewParts viewParts, LocalDate from, LocalDate to, Appendable out) {
+        try {
+            viewParts.header(from, to, out);
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                viewParts.tradesPerDay(date, out);
+            }
+            
+            viewParts.footer(out);
+        } catch (IOException ex) {
+            throw new DtreException("unable to write the report", ex);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.core;
+
+import com.dmg27.dtre.trade.Instruction;
+import com.dmg27.dtre.trade.Trades;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static com.dmg27.dtre.trade.InstructionTest.createInstruction;
+import static com.dmg27.dtre.trade.WorkingWeek.DEMO_WORKING_WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link SettlementScheduler} class.
+ * @author douglasmcgee
+ */
+public class SettlementSchedulerTest {
+
+    @Test
+    public void settleDueOnScheduleTest() {
+        SettlementScheduler scheduler = new SettlementScheduler().clock(new MutableClock("2016-01-05"));
+        scheduler.schedule(Arrays.asList(this.createUsdInstruction("04 Jan 2016", "10"), this.createUsdInstruction("06 Jan 2016", "20")));
+        assertEquals(1, scheduler.getTrades().getTrades().size());
+        assertTrue(scheduler.getTrades().getTrades().get(0).getSettledAmount().isPresent());
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(LocalDate.parse("2016-01-06"), scheduler.getPending().get(0).getSettlementDate());
+    }
+
+    @Test
+    public void settleDueBucketOnRollTest() {
+        MutableClock clock = new MutableClock("2016-01-01");
+        SettlementScheduler scheduler = new SettlementScheduler().clock(clock);
+        scheduler.schedule(Arrays.asList(
+            this.createUsdInstruction("07 Jan 2016", "10"),
+            this.createUsdInstruction("05 Jan 2016", "20"),
+            this.createUsdInstruction("07 Jan 2016", "30"),
+            this.createUsdInstruction("06 Jan 2016", "40")));
+        assertEquals(0, scheduler.roll());
+        assertTrue(scheduler.getTrades().getTrades().isEmpty());
+
+        clock.setDate("2016-01-06");
+        assertEquals(2, scheduler.roll());
+        assertEquals(0, scheduler.roll());
+        assertEquals(Arrays.asList("4000.00", "2000.00"), this.settledAmounts(scheduler.getTrades()));
+        assertEquals(2, scheduler.getPendingCount());
+
+        clock.setDate("2016-01-07");
+        assertEquals(2, scheduler.roll());
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(Arrays.asList("4000.00", "3000.00", "2000.00", "1000.00"), this.settledAmounts(scheduler.getTrades()));
+    }
+
+    @Test
+    public void sameAsSettlingAfterwardsTest() {
+        MutableClock clock = new MutableClock("2016-01-01");
+        SettlementScheduler scheduler = new SettlementScheduler().clock(clock);
+        List<Instruction> expected = new ArrayList<>();
+        for (int day = 1; day <= 20; day++) {
+            String settlementDate = String.format("%02d Jan 2016", day);
+            for (int i = 0; i < 5; i++) {
+                String price = Integer.toString(1 + (day * 7 + i * 3) % 10);
+                scheduler.schedule(this.createUsdInstruction(settlementDate, price));
+                expected.add(this.createUsdInstruction(settlementDate, price).clock(clock));
+            }
+        }
+
+        for (int day = 2; day <= 31; day++) {
+            clock.setDate(LocalDate.of(2016, 1, day).toString());
+            scheduler.roll();
+        }
+
+        Trades settled = new Trades().trades(expected).workingWeek(DEMO_WORKING_WEEK).settle();
+        assertFalse(settled.getTrades().isEmpty());
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(this.settledAmounts(settled), this.settledAmounts(scheduler.getTrades()));
+    }
+
+    private Instruction createUsdInstruction(String settlementDate, String price) {
+        return createInstruction("foo", "B", "1.00", "USD", "01 Jan 2016", settlementDate, 100, price);
+    }
+
+    private List<String> settledAmounts(Trades trades) {
+        return trades.getTrades().stream()
+            .map(instruction -> instruction.getSettledAmount().get().toString())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * A clock whose date may be changed, at the start of the day in UTC.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(String date) {
+            this.setDate(date);
+        }
+
+        void setDate(String date) {
+            this.instant = LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.instant;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.dmg27.dtre.load.InstructionLoaderTest.LINES;
+import static com.dmg27.dtre.load.InstructionLoaderTest.assertLoaded;
+import static com.dmg27.dtre.load.MappedInstructionLoaderTest.UNUSUAL_LINES;
+import static com.dmg27.dtre.load.MappedInstructionLoaderTest.assertSameInstructions;
+import static com.dmg27.dtre.trade.WorkingWeek.DEMO_WORKING_WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link BinaryInstructionLoader} and {@link BinaryInstructionWriter} classes.
+ * @author douglasmcgee
+ */
+public class BinaryInstructionLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadFileTest() throws IOException {
+        File file = this.createFile(new BinaryInstructionWriter(), this.loadText(LINES));
+        assertLoaded(new BinaryInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath()));
+    }
+
+    @Test
+    public void sameAsTextLoaderTest() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lines.addAll(Arrays.asList(LINES));
+            lines.addAll(Arrays.asList(UNUSUAL_LINES));
+        }
+
+        List<Instruction> expected = this.loadText(lines.toArray(new String[lines.size()]));
+        File file = this.createFile(new BinaryInstructionWriter(4), expected);
+        assertSameInstructions(expected, new BinaryInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath()));
+    }
+
+    @Test
+    public void emptyFileTest() throws IOException {
+        File file = this.createFile(new BinaryInstructionWriter(), new ArrayList<>());
+        assertEquals(0, new BinaryInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath()).size());
+    }
+
+    @Test
+    public void badChecksumTest() throws IOException {
+        File file = this.createFile(new BinaryInstructionWriter(2), this.loadText(LINES));
+        try (RandomAccessFile bytes = new RandomAccessFile(file, "rw")) {
+            bytes.seek(bytes.length() - BinaryInstructionLoader.CHECKSUM_SIZE - 1);
+            bytes.write(bytes.read() ^ 1);
+        }
+
+        this.assertBadFile(file, "the record block 1 has a bad checksum");
+    }
+
+    @Test
+    public void truncatedTest() throws IOException {
+        File file = this.createFile(new BinaryInstructionWriter(), this.loadText(LINES));
+        try (RandomAccessFile bytes = new RandomAccessFile(file, "rw")) {
+            bytes.setLength(bytes.length() - 1);
+        }
+
+        this.assertBadFile(file, "it is truncated");
+    }
+
+    @Test
+    public void notBinaryTest() throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(LINES), StandardCharsets.UTF_8);
+        this.assertBadFile(file, "it is not a binary trade instructions file");
+    }
+
+    /**
+     * Assert that loading a bad file fails for a reason.
+     * @param file
+     * @param reason
+     */
+    void assertBadFile(File file, String reason) {
+        try {
+            new BinaryInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+            fail("expected a bad file");
+        } catch (DtreException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().endsWith("is bad because " + reason));
+        }
+    }
+
+    /**
+     * Load instructions from lines of text.
+     * @param lines
+     * @return The instructions.
+     * @throws IOException
+     */
+    List<Instruction> loadText(String... lines) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return new InstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+    }
+
+    /**
+     * Create a binary instructions file.
+     * @param writer
+     * @param instructions
+     * @return The file.
+     * @throws IOException
+     */
+    File createFile(BinaryInstructionWriter writer, List<Instruction> instructions) throws IOException {
+        File file = this.folder.newFile();
+        writer.write(file.toPath(), instructions);
+        return file;
+    }
+}
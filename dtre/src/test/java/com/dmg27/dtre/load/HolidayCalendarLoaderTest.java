@@ -0,0 +1,86 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.HolidayCalendar;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link HolidayCalendarLoader} class.
+ * @author douglasmcgee
+ */
+public class HolidayCalendarLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadFileTest() throws IOException {
+        File file = this.createFile("# UK bank holidays", "GBP,25 Dec 2018", "", " GBP , 26 Dec 2018 ", "AED,02 Dec 2019");
+        HolidayCalendar holidays = new HolidayCalendarLoader().load(file.toPath());
+        assertEquals(2, holidays.getCurrencyCodes().size());
+        assertEquals(2, holidays.getHolidays("GBP").size());
+        assertTrue(holidays.getHolidays("GBP").contains(LocalDate.parse("2018-12-26")));
+        assertTrue(holidays.getHolidays("AED").contains(LocalDate.parse("2019-12-02")));
+        assertTrue(holidays.getHolidays("USD").isEmpty());
+        assertEquals(2018, holidays.getFirstYear());
+        assertEquals(2019, holidays.getLastYear());
+    }
+
+    @Test
+    public void badLineTest() throws IOException {
+        this.assertBadLine("GBP");
+        this.assertBadLine("GBP,25 Dec 2018,extra");
+        this.assertBadLine("BOGUS,25 Dec 2018");
+        this.assertBadLine("GBP,2018-12-25");
+    }
+
+    @Test (expected = DtreException.class)
+    public void missingFileTest() {
+        new HolidayCalendarLoader().load(new File(this.folder.getRoot(), "missing.csv").toPath());
+    }
+
+    /**
+     * Assert that loading a file with a bad second line fails, reporting the line number.
+     * @param badLine
+     * @throws IOException
+     */
+    private void assertBadLine(String badLine) throws IOException {
+        try {
+            new HolidayCalendarLoader().load(this.createFile("GBP,25 Dec 2018", badLine).toPath());
+            fail("expected a bad line");
+        } catch (DtreException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("line 2 of "));
+        }
+    }
+
+    /**
+     * Create a holidays file.
+     * @param lines The lines of the file.
+     * @return The file.
+     * @throws IOException
+     */
+    private File createFile(String... lines) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
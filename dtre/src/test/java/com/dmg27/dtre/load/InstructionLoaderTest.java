@@ -0,0 +1,141 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.BuySell;
+import com.dmg27.dtre.trade.Instruction;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.dmg27.dtre.trade.WorkingWeek.DEMO_WORKING_WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link InstructionLoader} class.
+ * @author douglasmcgee
+ */
+public class InstructionLoaderTest {
+
+    /**
+     * Instruction lines, the last settling on a Saturday.
+     */
+    public static final String[] LINES = new String[] {
+        "bar,B,0.22,AED,01 Jan 2018,07 Jan 2018,10,150.5",
+        "car,S,1.00,USD,01 Jan 2018,08 Jan 2018,5000,1.0",
+        "foo,B,0.50,SGD,01 Jan 2018,13 Jan 2018,20,100.25",
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadFileTest() throws IOException {
+        File file = this.createFile("Entity,Buy/Sell,AgreedFx,Currency,InstructionDate,SettlementDate,Units,UnitPrice", LINES[0], "", LINES[1], "# comment", LINES[2]);
+        List<Instruction> instructions = new InstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+        assertLoaded(instructions);
+    }
+
+    @Test
+    public void loadReaderTest() throws IOException {
+        List<Instruction> instructions = new ArrayList<>();
+        new InstructionLoader(DEMO_WORKING_WEEK).load(new StringReader(String.join("\n", LINES)), "test", instructions::add);
+        assertLoaded(instructions);
+    }
+
+    @Test
+    public void parseTrimsFieldsTest() {
+        Instruction instruction = new InstructionLoader(DEMO_WORKING_WEEK).parse(" foo , S , 0.50 , SGD , 01 Jan 2016 , 02 Jan 2016 , 200 , 100.25 ");
+        assertEquals("foo", instruction.getEntity());
+        assertEquals(BuySell.S, instruction.getBuySell());
+        assertEquals(LocalDate.parse("2016-01-04"), instruction.getEffectiveSettlementDate());
+    }
+
+    @Test
+    public void badFieldCountTest() {
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200");
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25,extra");
+    }
+
+    @Test
+    public void badFieldTest() {
+        this.assertBadLine(2, "foo,X,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(2, "foo,B,BOGUS,SGD,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(2, "foo,B,0.50,BOGUS,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(2, "foo,B,0.50,SGD,1 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 JAN 2016,200,100.25");
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,2x0,100.25");
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,0,100.25");
+        this.assertBadLine(2, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200,BOGUS");
+    }
+
+    @Test (expected = DtreException.class)
+    public void missingFileTest() {
+        new InstructionLoader(DEMO_WORKING_WEEK).load(new File(this.folder.getRoot(), "missing.csv").toPath());
+    }
+
+    /**
+     * Assert that loading a file with a bad line fails, reporting the line number.
+     * @param lineNumber
+     * @param badLine
+     */
+    private void assertBadLine(int lineNumber, String badLine) {
+        try {
+            File file = this.createFile(LINES[0], badLine, LINES[1]);
+            new InstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+            fail("expected a bad line");
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        } catch (DtreException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("line " + lineNumber + " of "));
+        }
+    }
+
+    /**
+     * Assert the instructions loaded from {@link #LINES}.
+     * @param instructions
+     */
+    static void assertLoaded(List<Instruction> instructions) {
+        assertEquals(3, instructions.size());
+        Instruction instruction = instructions.get(2);
+        assertEquals("foo", instruction.getEntity());
+        assertEquals(BuySell.B, instruction.getBuySell());
+        assertEquals(LocalDate.parse("2018-01-01"), instruction.getInstructionDate());
+        assertEquals(LocalDate.parse("2018-01-13"), instruction.getSettlementDate());
+        assertEquals(LocalDate.parse("2018-01-15"), instruction.getEffectiveSettlementDate());
+        assertEquals(20, instruction.getUnits());
+        assertEquals(new BigDecimal("100.25"), instruction.getUnitPrice());
+        assertEquals("bar", instructions.get(0).getEntity());
+        assertEquals("car", instructions.get(1).getEntity());
+    }
+
+    /**
+     * Create an instructions file.
+     * @param lines The lines of the file.
+     * @return The file.
+     * @throws IOException
+     */
+    File createFile(String... lines) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.dmg27.dtre.load.InstructionLoaderTest.LINES;
+import static com.dmg27.dtre.load.InstructionLoaderTest.assertLoaded;
+import static com.dmg27.dtre.trade.WorkingWeek.DEMO_WORKING_WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link MappedInstructionLoader} class.
+ * @author douglasmcgee
+ */
+public class MappedInstructionLoaderTest {
+
+    /**
+     * Lines with fields in unusual but valid forms.
+     */
+    static final String[] UNUSUAL_LINES = new String[] {
+        "foo,B,5E-1,SGD,01 Jan 2016,31 Feb 2016,+200,1.0025E+2",
+        "föö, S ,.5,AED,29 Feb 2015,30 Apr 2016,200,100.",
+        "bar,B,-0.50,USD,01 Jan 2016,02 Jan 2016,007,123456789012345678901234.5",
+    };
+
+    /**
+     * Clock after all the test settlement dates.
+     */
+    static final Clock CLOCK = Clock.fixed(Instant.parse("2020-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadFileTest() throws IOException {
+        File file = this.createFile("Entity,Buy/Sell,AgreedFx,Currency,InstructionDate,SettlementDate,Units,UnitPrice", LINES[0], "", LINES[1], "# comment", LINES[2]);
+        assertLoaded(new MappedInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath()));
+    }
+
+    @Test
+    public void loadCrLfFileTest() throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), String.join("\r\n", LINES).getBytes(StandardCharsets.UTF_8));
+        assertLoaded(new MappedInstructionLoader(DEMO_WORKING_WEEK).load(file.toPath()));
+    }
+
+    @Test
+    public void loadSmallWindowsTest() throws IOException {
+        File file = this.createFile(LINES[0], "", LINES[1], "# comment", LINES[2]);
+        assertLoaded(new MappedInstructionLoader(DEMO_WORKING_WEEK, 64).load(file.toPath()));
+    }
+
+    @Test
+    public void sameAsTextLoaderTest() throws IOException {
+        List<String> lines = new ArrayList<>(Arrays.asList(LINES));
+        lines.addAll(Arrays.asList(UNUSUAL_LINES));
+        File file = this.createFile(lines.toArray(new String[lines.size()]));
+
+        List<Instruction> expected = new InstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+        List<Instruction> actual = new MappedInstructionLoader(DEMO_WORKING_WEEK, 80).load(file.toPath());
+        assertSameInstructions(expected, actual);
+    }
+
+    @Test
+    public void badLineTest() throws IOException {
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,X,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.5.0,SGD,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,sgd,01 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,SGD,00 Jan 2016,02 Jan 2016,200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,SGD,01 Jan 2016,32 Jan 2016,200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,-200,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK), 3, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,9999999999,100.25");
+        this.assertBadLine(new MappedInstructionLoader(DEMO_WORKING_WEEK, 64), 3, "foo,B,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25 ............................");
+    }
+
+    /**
+     * Assert that loading a file with a bad line fails, reporting the line number.
+     * @param loader
+     * @param lineNumber
+     * @param badLine
+     * @throws IOException
+     */
+    void assertBadLine(InstructionLoader loader, int lineNumber, String badLine) throws IOException {
+        try {
+            File file = this.createFile("# header", LINES[0], badLine, LINES[1]);
+            loader.load(file.toPath());
+            fail("expected a bad line");
+        } catch (DtreException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("line " + lineNumber + " of "));
+        }
+    }
+
+    /**
+     * Assert that two lists of instructions are the same, settling both to compare the amounts.
+     * @param expected
+     * @param actual
+     */
+    static void assertSameInstructions(List<Instruction> expected, List<Instruction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Instruction expectedInstruction = expected.get(i).clock(CLOCK);
+            Instruction actualInstruction = actual.get(i).clock(CLOCK);
+            expectedInstruction.settle();
+            actualInstruction.settle();
+            assertEquals(expectedInstruction.getEntity(), actualInstruction.getEntity());
+            assertEquals(expectedInstruction.getBuySell(), actualInstruction.getBuySell());
+            assertEquals(expectedInstruction.getInstructionDate(), actualInstruction.getInstructionDate());
+            assertEquals(expectedInstruction.getSettlementDate(), actualInstruction.getSettlementDate());
+            assertEquals(expectedInstruction.getEffectiveSettlementDate(), actualInstruction.getEffectiveSettlementDate());
+            assertEquals(expectedInstruction.getUnits(), actualInstruction.getUnits());
+            assertEquals(expectedInstruction.getUnitPrice(), actualInstruction.getUnitPrice());
+            assertEquals(expectedInstruction.getSettledAmount(), actualInstruction.getSettledAmount());
+        }
+    }
+
+    /**
+     * Create an instructions file.
+     * @param lines The lines of the file.
+     * @return The file.
+     * @throws IOException
+     */
+    File createFile(String... lines) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.load;
+
+import com.dmg27.dtre.core.DtreException;
+import com.dmg27.dtre.trade.Instruction;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.dmg27.dtre.load.InstructionLoaderTest.LINES;
+import static com.dmg27.dtre.load.InstructionLoaderTest.assertLoaded;
+import static com.dmg27.dtre.load.MappedInstructionLoaderTest.UNUSUAL_LINES;
+import static com.dmg27.dtre.load.MappedInstructionLoaderTest.assertSameInstructions;
+import static com.dmg27.dtre.trade.WorkingWeek.DEMO_WORKING_WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the {@link ParallelInstructionLoader} class.
+ * @author douglasmcgee
+ */
+public class ParallelInstructionLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadFileTest() throws IOException {
+        File file = this.createFile("Entity,Buy/Sell,AgreedFx,Currency,InstructionDate,SettlementDate,Units,UnitPrice", LINES[0], "", LINES[1], "# comment", LINES[2]);
+        assertLoaded(new ParallelInstructionLoader(DEMO_WORKING_WEEK, 4, 1 << 10, 1).load(file.toPath()));
+    }
+
+    @Test
+    public void sameAsTextLoaderTest() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# header");
+        for (int i = 0; i < 100; i++) {
+            lines.addAll(Arrays.asList(LINES));
+            lines.add("");
+            lines.addAll(Arrays.asList(UNUSUAL_LINES));
+        }
+        File file = this.createFile(lines.toArray(new String[lines.size()]));
+
+        List<Instruction> expected = new InstructionLoader(DEMO_WORKING_WEEK).load(file.toPath());
+        assertSameInstructions(expected, new ParallelInstructionLoader(DEMO_WORKING_WEEK, 3, 1 << 10, 1).load(file.toPath()));
+        assertSameInstructions(expected, new ParallelInstructionLoader(DEMO_WORKING_WEEK, 1, 100, 1).load(file.toPath()));
+        assertSameInstructions(expected, new ParallelInstructionLoader(DEMO_WORKING_WEEK, 8).load(file.toPath()));
+    }
+
+    @Test
+    public void orderTest() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("entity" + i + ",B,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25");
+        }
+        File file = this.createFile(lines.toArray(new String[lines.size()]));
+
+        List<Instruction> instructions = new ParallelInstructionLoader(DEMO_WORKING_WEEK, 4, 1 << 12, 1).load(file.toPath());
+        assertEquals(lines.size(), instructions.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            assertEquals("entity" + i, instructions.get(i).getEntity());
+        }
+    }
+
+    @Test
+    public void badLineTest() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add(i == 777 ? "foo,X,0.50,SGD,01 Jan 2016,02 Jan 2016,200,100.25" : LINES[i % LINES.length]);
+        }
+        File file = this.createFile(lines.toArray(new String[lines.size()]));
+
+        try {
+            new ParallelInstructionLoader(DEMO_WORKING_WEEK, 4, 1 << 12, 1).load(file.toPath());
+            fail("expected a bad line");
+        } catch (DtreException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("line 778 of "));
+        }
+    }
+
+    @Test (expected = DtreException.class)
+    public void badParallelismTest() {
+        new ParallelInstructionLoader(DEMO_WORKING_WEEK, 0);
+    }
+
+    /**
+     * Create an instructions file.
+     * @param lines The lines of the file.
+     * @return The file.
+     * @throws IOException
+     */
+    File createFile(String... lines) throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
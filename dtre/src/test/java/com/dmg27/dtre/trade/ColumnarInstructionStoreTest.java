@@ -0,0 +1,328 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.dmg27.dtre.trade.InstructionTest.createInstruction;
+import static com.dmg27.dtre.trade.TradesTest.BAR;
+import static com.dmg27.dtre.trade.TradesTest.CAR;
+import static com.dmg27.dtre.trade.TradesTest.FOO;
+import static com.dmg27.dtre.trade.WorkingWeek.*;
+import static com.dmg27.dtre.trade.WorkingWeekTestConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link ColumnarInstructionStore} class.
+ * @author douglasmcgee
+ */
+public class ColumnarInstructionStoreTest {
+    
+    @Test
+    public void rowTest() {
+        List<Instruction> instructions = createInstructions(100);
+        InstructionStore store = createStore(instructions);
+        assertEquals(instructions.size(), store.size());
+        InstructionStore.Row row = store.row(0);
+        for (int i = 0; i < instructions.size(); i++) {
+            assertSame(instructions.get(i), row.at(i));
+            assertEquals(i, row.getId());
+        }
+    }
+    
+    @Test
+    public void asListTest() {
+        List<Instruction> instructions = createInstructions(100);
+        List<Instruction> stored = createStore(instructions).asList();
+        assertEquals(instructions.size(), stored.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            Instruction instruction = stored.get(i);
+            assertEquals(i, instruction.getId());
+            assertSame(instructions.get(i), createStore(instructions).row(i));
+            assertEquals(instructions.get(i).getAgreedFx(), instruction.getAgreedFx());
+            assertEquals(instructions.get(i).getCurrencyCode(), instruction.getCurrencyCode());
+            assertEquals(instructions.get(i).getEffectiveSettlementDate(), instruction.getEffectiveSettlementDate());
+        }
+    }
+    
+    @Test
+    public void bigAmountsTest() {
+        Instruction instruction = createInstruction(FOO, "B", "12345678901234567890.5", "SGD", "01 Jan 2016", "02 Jan 2016", 200, "1E+30");
+        InstructionStore store = createStore(new ArrayList<>());
+        store.add(instruction).clock(CLOCK_MON_01_FEB_2016);
+        store.settle();
+        instruction.clock(CLOCK_MON_01_FEB_2016).settle();
+        assertSame(instruction, store.row(0));
+        assertEquals(instruction.getSettledAmount(), store.row(0).getSettledAmount());
+    }
+    
+    @Test
+    public void settleSameAsInstructionsTest() {
+        List<Instruction> instructions = createInstructions(2000);
+        Trades expected = new Trades()
+            .trades(instructions)
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        Trades actual = new Trades()
+            .trades(createStore(createInstructions(2000)).clock(CLOCK_MON_01_FEB_2016))
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        
+        assertEquals(expected.getTrades().size(), actual.getTrades().size());
+        for (int i = 0; i < expected.getTrades().size(); i++) {
+            assertEquals(expected.getTrades().get(i).getId(), actual.getTrades().get(i).getId());
+            assertEquals(expected.getTrades().get(i).getSettledAmount(), actual.getTrades().get(i).getSettledAmount());
+        }
+        
+        for (LocalDate date = LocalDate.parse(SAT_02_JAN_2016); date.isBefore(LocalDate.parse(SAT_09_JAN_2016)); date = date.plusDays(1)) {
+            for (String entity : new String[] {BAR, CAR, FOO}) {
+                assertEquals(expected.getTotalSettledIncommingOnAndFor(date, entity), actual.getTotalSettledIncommingOnAndFor(date, entity));
+                assertEquals(expected.getTotalSettledOutgoingOnAndFor(date, entity), actual.getTotalSettledOutgoingOnAndFor(date, entity));
+                assertEquals(expected.getHighestSettledOnAndFor(date, entity), actual.getHighestSettledOnAndFor(date, entity));
+            }
+            
+            assertEquals(expected.getTradesOnAndFor(date, Optional.of(BAR)), actual.getTradesOnAndFor(date, Optional.of(BAR)));
+        }
+    }
+    
+    @Test
+    public void storeIndexSameAsInstructionsTest() {
+        Trades expected = new Trades()
+            .trades(createInstructions(2000))
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        Trades actual = new Trades()
+            .trades(createStore(createInstructions(2000)).clock(CLOCK_MON_01_FEB_2016))
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        assertSameQueries(expected, actual);
+        assertSameQueries(expected, actual.snapshot());
+        
+        Trades unranked = new Trades()
+            .trades(createStore(createInstructions(2000)).clock(CLOCK_MON_01_FEB_2016))
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settleWithoutRanking();
+        for (LocalDate date = LocalDate.parse(SAT_02_JAN_2016); date.isBefore(LocalDate.parse(SAT_09_JAN_2016)); date = date.plusDays(1)) {
+            assertEquals(expected.getTopSettledOnAndFor(date, Optional.empty(), 5), unranked.getTopSettledOnAndFor(date, Optional.empty(), 5));
+            assertEquals(expected.getSettledOnAndFor(BuySell.S, date, Optional.of(FOO)), unranked.getSettledOnAndFor(BuySell.S, date, Optional.of(FOO)));
+        }
+    }
+    
+    @Test
+    public void queriesCreateOnlyReturnedTradesTest() {
+        CountingStore store = new CountingStore(createStore(createInstructions(2000)).clock(CLOCK_MON_01_FEB_2016));
+        Trades trades = new Trades()
+            .trades(store)
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        LocalDate date = LocalDate.parse(MON_04_JAN_2016);
+        for (LocalDate day = LocalDate.parse(SAT_02_JAN_2016); day.isBefore(LocalDate.parse(SAT_09_JAN_2016)); day = day.plusDays(1)) {
+            trades.getDailySummary(day);
+            trades.getTotalSettledIncommingOnAndFor(day, FOO);
+            trades.getHighestSettledOnAndFor(day, BAR);
+            trades.getTopEntitiesOn(BuySell.B, day, 2);
+        }
+        
+        assertEquals(0, store.created);
+        assertEquals(3, trades.getTopSettledOnAndFor(date, Optional.empty(), 3).size());
+        assertEquals(3, store.created);
+    }
+    
+    @Test
+    public void unsettleableTest() {
+        Instruction instruction = createInstruction(FOO, "B", "0.50", "SGD", "01 Jan 2016", "06 Feb 2016", 200, "100.25");
+        InstructionStore store = createStore(new ArrayList<>()).add(instruction).clock(CLOCK_MON_01_FEB_2016);
+        store.settle();
+        assertFalse(store.row(0).isSettled());
+        assertFalse(store.row(0).isSettleable());
+        assertFalse(store.get(0).isSettled());
+    }
+    
+    @Test (expected = IndexOutOfBoundsException.class)
+    public void rowOutOfRangeTest() {
+        createStore(createInstructions(1)).row(1);
+    }
+    
+    /**
+     * Assert that a stored instruction matches an instruction.
+     * @param expected The instruction.
+     * @param actual The stored instruction.
+     */
+    static void assertSame(Instruction expected, InstructionStore.Row actual) {
+        assertEquals(expected.getEntity(), actual.getEntity());
+        assertEquals(expected.getBuySell(), actual.getBuySell());
+        assertEquals(expected.getAgreedFx(), actual.getAgreedFx());
+        assertEquals(expected.getCurrencyCode(), actual.getCurrencyCode());
+        assertEquals(expected.getInstructionDate(), actual.getInstructionDate());
+        assertEquals(expected.getSettlementDate(), actual.getSettlementDate());
+        assertEquals(expected.getEffectiveSettlementDate(), actual.getEffectiveSettlementDate());
+        assertEquals(expected.getUnits(), actual.getUnits());
+        assertEquals(expected.getUnitPrice(), actual.getUnitPrice());
+        assertEquals(expected.getSettledAmount(), actual.getSettledAmount());
+        assertEquals(expected.isSettled(), actual.isSettled());
+    }
+    
+    /**
+     * Assert that trades answer the report queries the same as other trades.
+     * @param expected The other trades.
+     * @param actual The trades.
+     */
+    private static void assertSameQueries(Trades expected, Trades actual) {
+        assertEquals(expected.getFirstSettledDate(), actual.getFirstSettledDate());
+        assertEquals(expected.getLastSettledDate(), actual.getLastSettledDate());
+        for (LocalDate date = LocalDate.parse(SAT_02_JAN_2016); date.isBefore(LocalDate.parse(SAT_09_JAN_2016)); date = date.plusDays(1)) {
+            DailySummary expectedSummary = expected.getDailySummary(date);
+            DailySummary actualSummary = actual.getDailySummary(date);
+            assertEquals(expectedSummary.getTotals().getIncoming(), actualSummary.getTotals().getIncoming());
+            assertEquals(expectedSummary.getTotals().getOutgoing(), actualSummary.getTotals().getOutgoing());
+            assertEquals(expectedSummary.getEntityTotals().size(), actualSummary.getEntityTotals().size());
+            for (int i = 0; i < expectedSummary.getEntityTotals().size(); i++) {
+                assertEquals(expectedSummary.getEntityTotals().get(i).getEntity(), actualSummary.getEntityTotals().get(i).getEntity());
+                assertEquals(expectedSummary.getEntityTotals().get(i).getHighest(), actualSummary.getEntityTotals().get(i).getHighest());
+            }
+            
+            assertEquals(expected.getTradesOn(date), actual.getTradesOn(date));
+            assertEquals(expected.getTopSettledOnAndFor(date, Optional.empty(), 5), actual.getTopSettledOnAndFor(date, Optional.empty(), 5));
+            assertEquals(expected.getTopSettledOnAndFor(date, Optional.of(CAR), 2), actual.getTopSettledOnAndFor(date, Optional.of(CAR), 2));
+            assertEquals(expected.getTopEntitiesOn(BuySell.S, date, 2).size(), actual.getTopEntitiesOn(BuySell.S, date, 2).size());
+        }
+    }
+    
+    /**
+     * Create a store holding instructions.
+     * @param instructions The instructions.
+     * @return The store.
+     */
+    static InstructionStore createStore(List<Instruction> instructions) {
+        InstructionStore store = new ColumnarInstructionStore(DEMO_WORKING_WEEK);
+        instructions.forEach(store::add);
+        return store;
+    }
+    
+    /**
+     * Create random instructions over a week, some settling after {@link WorkingWeekTestConstants#CLOCK_MON_01_FEB_2016}.
+     * @param count The number of instructions.
+     * @return The instructions.
+     */
+    static List<Instruction> createInstructions(int count) {
+        Random random = new Random(27);
+        String[] entities = new String[] {BAR, CAR, FOO};
+        String[] currencies = new String[] {"SGD", "AED", "USD"};
+        String[] settlementDates = new String[] {"02 Jan 2016", "03 Jan 2016", "04 Jan 2016", "07 Jan 2016", "08 Jan 2016", "06 Feb 2016"};
+        List<Instruction> instructions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            instructions.add(createInstruction(
+                entities[random.nextInt(entities.length)],
+                random.nextBoolean() ? "B" : "S",
+                "0." + (10 + random.nextInt(90)),
+                currencies[random.nextInt(currencies.length)],
+                "01 Jan 2016",
+                settlementDates[random.nextInt(settlementDates.length)],
+                1 + random.nextInt(1000),
+                random.nextInt(100) + "." + random.nextInt(100))
+                .clock(CLOCK_MON_01_FEB_2016));
+        }
+        
+        return instructions;
+    }
+    
+    /**
+     * A store that counts the instructions created from it.
+     */
+    private static final class CountingStore extends InstructionStore {
+        
+        private final InstructionStore store;
+        
+        int created;
+        
+        CountingStore(InstructionStore store) {
+            super(store.workingWeek);
+            this.store = store;
+            this.clock(store.getClock());
+        }
+        
+        @Override
+        public Instruction get(int index) {
+            ++this.created;
+            return super.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return this.store.size();
+        }
+        
+        @Override
+        public InstructionStore add(Instruction instruction) {
+            this.store.add(instruction);
+            return this;
+        }
+        
+        @Override
+        int getEntityId(int index) {
+            return this.store.getEntityId(index);
+        }
+        
+        @Override
+        BuySell getBuySell(int index) {
+            return this.store.getBuySell(index);
+        }
+        
+        @Override
+        Money getAgreedFx(int index) {
+            return this.store.getAgreedFx(index);
+        }
+        
+        @Override
+        int getCurrencyId(int index) {
+            return this.store.getCurrencyId(index);
+        }
+        
+        @Override
+        long getInstructionEpochDay(int index) {
+            return this.store.getInstructionEpochDay(index);
+        }
+        
+        @Override
+        long getSettlementEpochDay(int index) {
+            return this.store.getSettlementEpochDay(index);
+        }
+        
+        @Override
+        long getEffectiveEpochDay(int index) {
+            return this.store.getEffectiveEpochDay(index);
+        }
+        
+        @Override
+        int getUnits(int index) {
+            return this.store.getUnits(index);
+        }
+        
+        @Override
+        Money getUnitPrice(int index) {
+            return this.store.getUnitPrice(index);
+        }
+        
+        @Override
+        Money getSettledAmount(int index) {
+            return this.store.getSettledAmount(index);
+        }
+        
+        @Override
+        void setSettledAmount(int index, Money settledAmount) {
+            this.store.setSettledAmount(index, settledAmount);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static com.dmg27.dtre.trade.ColumnarInstructionStoreTest.createInstructions;
+import static com.dmg27.dtre.trade.TradesTest.BAR;
+import static com.dmg27.dtre.trade.TradesTest.StubbedInstructionsTests.createSettledTrades;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link ConcurrentTrades} class.
+ * @author douglasmcgee
+ */
+public class ConcurrentTradesTest {
+
+    private static final int THREADS = 4;
+
+    private static final int BATCH_SIZE = 50;
+
+    @Test
+    public void concurrentAddSameAsSettleTest() throws Exception {
+        List<Instruction> instructions = createInstructions(4000);
+        ConcurrentTrades trades = new ConcurrentTrades();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int first = thread * BATCH_SIZE;
+                futures.add(executor.submit(() -> {
+                    for (int from = first; from < instructions.size(); from += THREADS * BATCH_SIZE) {
+                        trades.add(instructions.subList(from, Math.min(from + BATCH_SIZE, instructions.size())));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Trades expected = createSettledTrades(createInstructions(4000));
+        Trades snapshot = trades.snapshot();
+        assertEquals(instructions.size(), trades.size());
+        assertEquals(instructions.size(), snapshot.getTrades().size());
+        assertEquals(settledAmounts(expected.getTrades()), settledAmounts(snapshot.getTrades()));
+        for (LocalDate date : dates(expected)) {
+            assertEquals(settledAmounts(expected.getTradesOn(date)), settledAmounts(trades.getTradesOn(date)));
+            for (BuySell buySell : BuySell.values()) {
+                assertEquals(expected.getSettledOnAndFor(buySell, date, Optional.empty()), trades.getSettledOnAndFor(buySell, date, Optional.empty()));
+                assertEquals(expected.getSettledOnAndFor(buySell, date, Optional.of(BAR)), snapshot.getSettledOnAndFor(buySell, date, Optional.of(BAR)));
+            }
+
+            assertEquals(expected.getHighestSettledOnAndFor(date, BAR), trades.getHighestSettledOnAndFor(date, BAR));
+        }
+    }
+
+    @Test
+    public void consistentWhileAddingTest() throws Exception {
+        List<Instruction> instructions = createInstructions(3000);
+        LocalDate date = instructions.get(0).getEffectiveSettlementDate();
+        ConcurrentTrades trades = new ConcurrentTrades();
+        AtomicBoolean adding = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int from = 0; from < instructions.size(); from += BATCH_SIZE) {
+                    trades.add(instructions.subList(from, from + BATCH_SIZE));
+                }
+
+                adding.set(false);
+            });
+
+            while (adding.get()) {
+                // Every total in a summary is of the same book, and each addition is seen whole.
+                DailySummary summary = trades.getDailySummary(date);
+                Money.Sum incoming = new Money.Sum(Money.SETTLEMENT_SCALE);
+                summary.getEntityTotals().forEach(totals -> incoming.add(totals.getIncoming()));
+                assertEquals(summary.getTotals().getIncoming(), incoming.get());
+                assertEquals(0, trades.size() % BATCH_SIZE);
+            }
+
+            writer.get();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        assertEquals(instructions.size(), trades.size());
+    }
+
+    @Test
+    public void snapshotUnchangedByAddTest() {
+        List<Instruction> instructions = createInstructions(600);
+        ConcurrentTrades trades = new ConcurrentTrades().add(instructions.subList(0, 300));
+        Trades snapshot = trades.snapshot();
+        LocalDate date = instructions.get(0).getEffectiveSettlementDate();
+        Money incoming = snapshot.getSettledOnAndFor(BuySell.S, date, Optional.empty());
+        List<Instruction> tradesOn = snapshot.getTradesOn(date);
+
+        trades.add(instructions.subList(300, 450));
+        assertEquals(incoming, snapshot.getSettledOnAndFor(BuySell.S, date, Optional.empty()));
+        assertEquals(tradesOn, snapshot.getTradesOn(date));
+        assertEquals(300, snapshot.getTrades().size());
+
+        // Adding to the snapshot leaves the concurrent trades unchanged.
+        snapshot.add(instructions.subList(450, 600));
+        assertEquals(450, trades.size());
+        assertEquals(450, snapshot.getTrades().size());
+        List<Instruction> addedToSnapshot = instructions.subList(450, 600);
+        assertTrue(trades.getTradesOn(date).stream().noneMatch(instruction -> addedToSnapshot.stream().anyMatch(a -> a == instruction)));
+    }
+
+    private static List<Money> settledAmounts(List<Instruction> trades) {
+        return trades.stream()
+            .map(instruction -> instruction.getSettledMoney().orElse(null))
+            .collect(Collectors.toList());
+    }
+
+    private static Set<LocalDate> dates(Trades trades) {
+        return trades.getTrades().stream()
+            .map(Instruction::getEffectiveSettlementDate)
+            .collect(Collectors.toSet());
+    }
+}
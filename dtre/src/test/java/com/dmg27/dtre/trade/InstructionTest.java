@@ -17,6 +17,7 @@ import static com.dmg27.dtre.trade.WorkingWeek.*;
 import static com.dmg27.dtre.trade.WorkingWeekTestConstants.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -40,6 +41,29 @@ public class InstructionTest {
         assertEquals(NO_ID, instruction.getId());
     }
     
+    @Test
+    public void unsetMoneyFieldsTest() {
+        Instruction instruction = new Instruction();
+        assertNull(instruction.getAgreedFx());
+        assertNull(instruction.getUnitPrice());
+    }
+    
+    @Test
+    public void internedEntityAndCurrencyCodeTest() {
+        Instruction instruction1 = this.createInstruction().entity(new String("foo")).currencyCode(new String("SGD"));
+        Instruction instruction2 = this.createInstruction().entity(new String("foo")).currencyCode(new String("SGD"));
+        assertTrue(instruction1.getEntity() == instruction2.getEntity());
+        assertTrue(instruction1.getCurrencyCode() == instruction2.getCurrencyCode());
+        assertEquals(instruction1.getEntityId(), instruction2.getEntityId());
+        assertEquals(instruction1.getCurrencyId(), instruction2.getCurrencyId());
+    }
+    
+    @Test (expected = DtreException.class)
+    public void createInstructionNullEntityTest() {
+        this.createInstruction()
+            .entity(null);
+    }
+    
     @Test
     public void setInstructionIdTest() {
         Instruction instruction = this.createInstruction()
@@ -151,6 +175,25 @@ public class InstructionTest {
         this.assertSettlementTest(instruction, "2016-01-04", "15050.00");
     }
     
+    @Test
+    public void effectiveSettlementDateRecalculatedTest() {
+        Instruction instruction = this.createInstruction();
+        assertEquals(LocalDate.parse("2016-01-04"), instruction.getEffectiveSettlementDate());
+        
+        instruction.currencyCode(CURRENCY_CODE_AED);
+        assertEquals(LocalDate.parse("2016-01-03"), instruction.getEffectiveSettlementDate());
+        
+        instruction.settlementDate("01 Jan 2016");
+        assertEquals(LocalDate.parse("2016-01-03"), instruction.getEffectiveSettlementDate());
+        
+        instruction.settlementDate(LocalDate.parse("2016-01-05"));
+        assertEquals(LocalDate.parse("2016-01-05"), instruction.getEffectiveSettlementDate());
+        
+        instruction.settlementDate(LocalDate.parse("2016-01-09"))
+            .workingWeek(new WorkingWeek());
+        assertEquals(LocalDate.parse("2016-01-11"), instruction.getEffectiveSettlementDate());
+    }
+    
     /**
      * Assert the settlement of an instruction.
      * @param instruction
@@ -0,0 +1,119 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link Money} class.
+ * @author douglasmcgee
+ */
+public class MoneyTest {
+
+    @Test
+    public void parseKeepsScaleTest() {
+        assertEquals(new BigDecimal("0.50"), Money.parse("0.50").toBigDecimal());
+        assertEquals(2, Money.parse("0.50").getScale());
+        assertEquals("150.5", Money.parse("150.5").toString());
+        assertEquals("0.00", Money.ZERO.toString());
+    }
+
+    @Test (expected = NumberFormatException.class)
+    public void parseBogusTest() {
+        Money.parse("BOGUS");
+    }
+
+    @Test
+    public void multiplyRoundDownTest() {
+        this.assertMultiply("2506.25", "100.00", "25.062544", 1);
+    }
+
+    @Test
+    public void multiplyRoundUpTest() {
+        this.assertMultiply("2506.27", "100.00", "25.06266", 1);
+    }
+
+    @Test
+    public void multiplyRoundHalfEvenTest() {
+        this.assertMultiply("2506.24", "100.00", "25.06235", 1);
+        this.assertMultiply("2506.24", "100.00", "25.06245", 1);
+        this.assertMultiply("-2506.24", "-100.00", "25.06245", 1);
+    }
+
+    @Test
+    public void multiplyOverflowFallsBackToBigDecimalTest() {
+        this.assertMultiply("85070591730234615847396907784232501249.00", "9223372036854775807", "9223372036854775807", 1);
+        this.assertMultiply("999999999999999999000.00", "99999999.9999999999", "1000000000000", 10);
+    }
+
+    @Test
+    public void multiplyAgreesWithBigDecimalTest() {
+        Random random = new Random(27);
+        for (int i = 0; i < 100000; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(random.nextInt(100000000), random.nextInt(7));
+            BigDecimal agreedFx = BigDecimal.valueOf(random.nextInt(10000000), random.nextInt(9));
+            int units = 1 + random.nextInt(Integer.MAX_VALUE);
+            BigDecimal expected = unitPrice.multiply(agreedFx).multiply(new BigDecimal(units)).setScale(2, RoundingMode.HALF_EVEN);
+            assertEquals(expected, Money.of(unitPrice).multiply(Money.of(agreedFx), units, Money.SETTLEMENT_SCALE).toBigDecimal());
+        }
+    }
+
+    @Test
+    public void addTest() {
+        assertEquals(new BigDecimal("6000.00"), Money.ZERO.add(Money.parse("6000")).toBigDecimal());
+        assertEquals(new BigDecimal("1.125"), Money.parse("1.12").add(Money.parse("0.005")).toBigDecimal());
+        assertEquals(new BigDecimal("18446744073709551614.00"),
+            Money.parse("9223372036854775807").add(Money.parse("9223372036854775807.00")).toBigDecimal());
+    }
+
+    @Test
+    public void sumTest() {
+        Money.Sum sum = new Money.Sum(Money.SETTLEMENT_SCALE);
+        assertEquals(Money.ZERO, sum.get());
+
+        BigDecimal expected = new BigDecimal("0.00");
+        for (String amount : new String[] {"6000", "0.005", "9223372036854775.80", "9223372036854775.80", "-1.00"}) {
+            sum.add(Money.parse(amount));
+            expected = expected.add(new BigDecimal(amount));
+            assertEquals(expected, sum.get().toBigDecimal());
+        }
+    }
+
+    @Test
+    public void compareToTest() {
+        assertEquals(0, Money.parse("6000").compareTo(Money.parse("6000.00")));
+        assertTrue(Money.parse("5999.999").compareTo(Money.parse("6000")) < 0);
+        assertTrue(Money.parse("6000.01").compareTo(Money.parse("6000")) > 0);
+        assertTrue(Money.parse("92233720368547758070").compareTo(Money.parse("1.000000000000000001")) > 0);
+    }
+
+    @Test
+    public void equalsTest() {
+        assertEquals(Money.parse("6000.00"), Money.of(600000, 2));
+        assertEquals(Money.parse("6000.00").hashCode(), Money.of(600000, 2).hashCode());
+        assertTrue(!Money.parse("6000").equals(Money.parse("6000.00")));
+    }
+
+    /**
+     * Assert a settlement style multiplication against the expected amount.
+     * @param expected
+     * @param unitPrice
+     * @param agreedFx
+     * @param units
+     */
+    private void assertMultiply(String expected, String unitPrice, String agreedFx, int units) {
+        Money amount = Money.parse(unitPrice).multiply(Money.parse(agreedFx), units, Money.SETTLEMENT_SCALE);
+        assertEquals(new BigDecimal(expected), amount.toBigDecimal());
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+
+import static com.dmg27.dtre.trade.ColumnarInstructionStoreTest.assertSame;
+import static com.dmg27.dtre.trade.ColumnarInstructionStoreTest.createInstructions;
+import static com.dmg27.dtre.trade.InstructionTest.createInstruction;
+import static com.dmg27.dtre.trade.TradesTest.BAR;
+import static com.dmg27.dtre.trade.TradesTest.CAR;
+import static com.dmg27.dtre.trade.TradesTest.FOO;
+import static com.dmg27.dtre.trade.WorkingWeek.*;
+import static com.dmg27.dtre.trade.WorkingWeekTestConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Unit tests for the {@link OffHeapInstructionStore} class.
+ * @author douglasmcgee
+ */
+public class OffHeapInstructionStoreTest {
+
+    /**
+     * A small number of records in a segment as a power of two, so tests span several segments.
+     */
+    private static final int SEGMENT_SHIFT = 4;
+
+    @Test
+    public void rowTest() {
+        List<Instruction> instructions = createInstructions(100);
+        InstructionStore store = createStore(instructions);
+        assertEquals(instructions.size(), store.size());
+        InstructionStore.Row row = store.row(0);
+        for (int i = 0; i < instructions.size(); i++) {
+            assertSame(instructions.get(i), row.at(i));
+            assertEquals(i, row.getId());
+        }
+    }
+
+    @Test
+    public void mappedFileTest() throws IOException {
+        Path path = Files.createTempFile("dtre", ".store");
+        try (OffHeapInstructionStore store = new OffHeapInstructionStore(DEMO_WORKING_WEEK, path, SEGMENT_SHIFT)) {
+            List<Instruction> instructions = createInstructions(100);
+            instructions.forEach(store::add);
+            assertEquals(7L * OffHeapInstructionStore.RECORD_SIZE << SEGMENT_SHIFT, Files.size(path));
+            for (int i = 0; i < instructions.size(); i++) {
+                assertSame(instructions.get(i), store.row(i));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void bigAmountsTest() {
+        Instruction instruction = createInstruction(FOO, "B", "12345678901234567890.5", "SGD", "01 Jan 2016", "02 Jan 2016", 200, "1E+30");
+        InstructionStore store = createStore(new ArrayList<>());
+        store.add(instruction).clock(CLOCK_MON_01_FEB_2016);
+        store.settle();
+        instruction.clock(CLOCK_MON_01_FEB_2016).settle();
+        assertSame(instruction, store.row(0));
+        assertEquals(instruction.getSettledAmount(), store.row(0).getSettledAmount());
+    }
+
+    @Test
+    public void settleSameAsInstructionsTest() {
+        List<Instruction> instructions = createInstructions(2000);
+        Trades expected = new Trades()
+            .trades(instructions)
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+        Trades actual = new Trades()
+            .trades(createStore(createInstructions(2000)).clock(CLOCK_MON_01_FEB_2016))
+            .workingWeek(DEMO_WORKING_WEEK)
+            .settle();
+
+        assertEquals(expected.getTrades().size(), actual.getTrades().size());
+        for (int i = 0; i < expected.getTrades().size(); i++) {
+            assertEquals(expected.getTrades().get(i).getId(), actual.getTrades().get(i).getId());
+            assertEquals(expected.getTrades().get(i).getSettledAmount(), actual.getTrades().get(i).getSettledAmount());
+        }
+
+        for (LocalDate date = LocalDate.parse(SAT_02_JAN_2016); date.isBefore(LocalDate.parse(SAT_09_JAN_2016)); date = date.plusDays(1)) {
+            for (String entity : new String[] {BAR, CAR, FOO}) {
+                assertEquals(expected.getTotalSettledIncommingOnAndFor(date, entity), actual.getTotalSettledIncommingOnAndFor(date, entity));
+                assertEquals(expected.getTotalSettledOutgoingOnAndFor(date, entity), actual.getTotalSettledOutgoingOnAndFor(date, entity));
+                assertEquals(expected.getHighestSettledOnAndFor(date, entity), actual.getHighestSettledOnAndFor(date, entity));
+            }
+
+            assertEquals(expected.getTradesOnAndFor(date, Optional.of(BAR)), actual.getTradesOnAndFor(date, Optional.of(BAR)));
+        }
+    }
+
+    @Test
+    public void unsettleableTest() {
+        Instruction instruction = createInstruction(FOO, "B", "0.50", "SGD", "01 Jan 2016", "06 Feb 2016", 200, "100.25");
+        InstructionStore store = createStore(new ArrayList<>()).add(instruction).clock(CLOCK_MON_01_FEB_2016);
+        store.settle();
+        assertFalse(store.row(0).isSettled());
+        assertFalse(store.get(0).isSettled());
+    }
+
+    /**
+     * Create a store of direct buffers holding instructions.
+     * @param instructions The instructions.
+     * @return The store.
+     */
+    private static InstructionStore createStore(List<Instruction> instructions) {
+        InstructionStore store = new OffHeapInstructionStore(DEMO_WORKING_WEEK, null, SEGMENT_SHIFT);
+        instructions.forEach(store::add);
+        return store;
+    }
+}
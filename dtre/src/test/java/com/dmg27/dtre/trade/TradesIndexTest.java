@@ -0,0 +1,125 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.trade;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static com.dmg27.dtre.trade.ColumnarInstructionStoreTest.createInstructions;
+import static com.dmg27.dtre.trade.TradesTest.CAR;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the {@link TradesIndex} class.
+ * @author douglasmcgee
+ */
+public class TradesIndexTest {
+
+    @Test
+    public void rankedAddInAnyOrderTest() {
+        List<Instruction> instructions = createSettledInstructions(3000);
+        List<Instruction> ranked = new ArrayList<>(instructions);
+        ranked.sort(Instruction.RANKING);
+        TradesIndex expected = new TradesIndex(ranked, true);
+
+        // Add out of id order, as concurrent additions may be published, copying the index between batches.
+        List<Instruction> shuffled = new ArrayList<>(instructions);
+        Collections.shuffle(shuffled, new Random(27));
+        TradesIndex index = new TradesIndex(Collections.emptyList(), true);
+        for (int i = 0; i < shuffled.size(); i++) {
+            if (i % 50 == 0) {
+                index = new TradesIndex(index);
+            }
+
+            index.add(shuffled.get(i));
+        }
+
+        assertSameIndex(ranked, expected, index);
+    }
+
+    @Test
+    public void copyUnchangedByAddTest() {
+        List<Instruction> instructions = createSettledInstructions(3000);
+        List<Instruction> ranked = new ArrayList<>(instructions.subList(0, 1500));
+        ranked.sort(Instruction.RANKING);
+        TradesIndex index = new TradesIndex(ranked, true);
+        TradesIndex copy = new TradesIndex(index);
+        instructions.subList(1500, 3000).forEach(copy::add);
+
+        assertSameIndex(ranked, new TradesIndex(ranked, true), index);
+        List<Instruction> all = new ArrayList<>(instructions);
+        all.sort(Instruction.RANKING);
+        assertSameIndex(all, new TradesIndex(all, true), copy);
+    }
+
+    @Test
+    public void unrankedAddTest() {
+        List<Instruction> instructions = createSettledInstructions(3000);
+        TradesIndex index = new TradesIndex(instructions.subList(0, 1000), false);
+        instructions.subList(1000, 3000).forEach(index::add);
+
+        assertSameIndex(instructions, new TradesIndex(instructions, false), index);
+    }
+
+    /**
+     * Create settled instructions, with their ids in order.
+     * @param count The number of instructions.
+     * @return The instructions.
+     */
+    private static List<Instruction> createSettledInstructions(int count) {
+        List<Instruction> instructions = createInstructions(count);
+        for (int i = 0; i < instructions.size(); i++) {
+            instructions.get(i).id(i).settle();
+        }
+
+        return instructions;
+    }
+
+    /**
+     * Assert that an index holds trades in their order.
+     * @param trades The trades in order.
+     * @param expected An index of the trades built in one pass.
+     * @param actual The index.
+     */
+    private static void assertSameIndex(List<Instruction> trades, TradesIndex expected, TradesIndex actual) {
+        assertEquals(trades.size(), actual.size());
+        assertSameInstances(trades, actual.getTrades());
+        for (LocalDate date : trades.stream().map(Instruction::getEffectiveSettlementDate).collect(Collectors.toSet())) {
+            assertSameInstances(trades.stream()
+                .filter(instruction -> instruction.getEffectiveSettlementDate().equals(date))
+                .collect(Collectors.toList()), actual.getTradesOnAndFor(date, Optional.empty()));
+            assertSameInstances(trades.stream()
+                .filter(instruction -> instruction.getEffectiveSettlementDate().equals(date) && instruction.getEntity().equals(CAR))
+                .collect(Collectors.toList()), actual.getTradesOnAndFor(date, Optional.of(CAR)));
+            assertSameInstances(expected.getTopSettledOnAndFor(date, Optional.empty(), 5), actual.getTopSettledOnAndFor(date, Optional.empty(), 5));
+            assertEquals(
+                expected.getEntityTotals(date).stream().map(totals -> totals.entity).collect(Collectors.toList()),
+                actual.getEntityTotals(date).stream().map(totals -> totals.entity).collect(Collectors.toList()));
+            assertEquals(expected.getTotalSettledOnAndFor(BuySell.S, date, Optional.empty()), actual.getTotalSettledOnAndFor(BuySell.S, date, Optional.empty()));
+            assertEquals(expected.getHighestSettledOnAndFor(date, Optional.of(CAR)), actual.getHighestSettledOnAndFor(date, Optional.of(CAR)));
+        }
+    }
+
+    /**
+     * Assert that lists hold the same instructions in the same order.
+     * @param expected The expected instructions.
+     * @param actual The instructions.
+     */
+    private static void assertSameInstances(List<Instruction> expected, List<Instruction> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+        }
+    }
+}
@@ -10,8 +10,14 @@ package com.dmg27.dtre.trade;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -109,6 +115,28 @@ public class TradesTest {
             this.assertSettlement(trades.getTrades(), expectedSettled, expectedSettledAmount);
         }
 
+        @Test
+        public void settledDatesTest() {
+            Trades trades = new Trades()
+                .workingWeek(DEMO_WORKING_WEEK)
+                .trades(createInstructionStubs());
+            assertFalse(trades.getFirstSettledDate().isPresent());
+            
+            trades.settle();
+            LocalDate first = trades.getTrades().stream()
+                .filter(i -> i.isSettled())
+                .map(i -> i.getEffectiveSettlementDate())
+                .min(LocalDate::compareTo)
+                .get();
+            LocalDate last = trades.getTrades().stream()
+                .filter(i -> i.isSettled())
+                .map(i -> i.getEffectiveSettlementDate())
+                .max(LocalDate::compareTo)
+                .get();
+            assertEquals(Optional.of(first), trades.getFirstSettledDate());
+            assertEquals(Optional.of(last), trades.getLastSettledDate());
+        }
+
         /**
          * Assert the settlement sate of a collection of instructions.
          * @param tradesCltn
@@ -152,6 +180,245 @@ public class TradesTest {
     //        this.assertTotalSettledOnAndFor(BuySell.B, THU_07_JAN_2016, BAR, expectedAmount);
         }
 
+        @Test
+        public void getTotalsRefreshedBySettlementTest() {
+            Trades trades = createUnsettledTrades(createInstructionStubs());
+            LocalDate date = LocalDate.parse(THU_07_JAN_2016);
+            assertEquals(new BigDecimal("0.00"), trades.getTotalSettledOutgoingOnAndFor(date, BAR));
+            assertEquals(new BigDecimal("0.00"), trades.getTotalSettledIncommingOnAndFor(date, BAR));
+            assertEquals(Money.parse("0.00"), trades.getHighestSettledOnAndFor(date, BAR));
+            
+            trades.settle();
+            assertEquals(new BigDecimal("24080.00"), trades.getTotalSettledOutgoingOnAndFor(date, BAR));
+            assertEquals(new BigDecimal("18060.00"), trades.getTotalSettledIncommingOnAndFor(date, BAR));
+            assertEquals(Money.parse("16555.00"), trades.getHighestSettledOnAndFor(date, BAR));
+            assertEquals(Money.parse("0.00"), trades.getHighestSettledOnAndFor(date, FOO));
+            assertEquals(new BigDecimal("24080.00"), trades.getTotalSettledOutgoingOn(date));
+            assertEquals(new BigDecimal("18060.00"), trades.getTotalSettledIncommingOn(date));
+        }
+
+        @Test
+        public void parallelSettleSameAsSequentialTest() {
+            Random random = new Random(27);
+            List<Instruction> sequential = new ArrayList<>();
+            List<Instruction> parallel = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                // Few distinct prices, so there are many ties to rank stably, and some unsettleable trades.
+                String price = Integer.toString(1 + random.nextInt(50));
+                String settlementDate = random.nextInt(10) == 0 ? "01 Jan 2999" : "04 Jan 2016";
+                sequential.add(createInstruction(FOO, "B", "1.0", "USD", "01 Jan 2016", settlementDate, 10, price));
+                parallel.add(createInstruction(FOO, "B", "1.0", "USD", "01 Jan 2016", settlementDate, 10, price));
+            }
+            
+            Trades sequentialTrades = new Trades().trades(sequential).workingWeek(DEMO_WORKING_WEEK).settle();
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                Trades parallelTrades = new Trades()
+                    .trades(parallel)
+                    .workingWeek(DEMO_WORKING_WEEK)
+                    .settlementPool(pool)
+                    .parallelSettlementThreshold(100)
+                    .settle();
+                for (int i = 0; i < sequential.size(); i++) {
+                    Instruction expected = sequentialTrades.getTrades().get(i);
+                    Instruction actual = parallelTrades.getTrades().get(i);
+                    assertEquals(expected.getId(), actual.getId());
+                    assertEquals(expected.getSettledAmount(), actual.getSettledAmount());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Test
+        public void settledTotalsSameAsSummedTest() {
+            List<Instruction> instructions = ColumnarInstructionStoreTest.createInstructions(2000);
+            Trades trades = createSettledTrades(new ArrayList<>(instructions.subList(0, 1500))).add(instructions.subList(1500, 2000));
+            Set<LocalDate> dates = instructions.stream().map(Instruction::getEffectiveSettlementDate).collect(Collectors.toSet());
+            for (LocalDate date : dates) {
+                for (Optional<String> entity : Arrays.asList(Optional.<String>empty(), Optional.of(BAR), Optional.of(CAR), Optional.of(FOO), Optional.of(WIN))) {
+                    List<Instruction> settled = instructions.stream()
+                        .filter(i -> i.getEffectiveSettlementDate().equals(date) && (!entity.isPresent() || i.getEntity().equals(entity.get())))
+                        .filter(i -> i.getSettledAmount().isPresent())
+                        .collect(Collectors.toList());
+                    for (BuySell buySell : BuySell.values()) {
+                        BigDecimal expected = settled.stream()
+                            .filter(i -> i.getBuySell() == buySell)
+                            .map(i -> i.getSettledAmount().get())
+                            .reduce(new BigDecimal("0.00"), BigDecimal::add);
+                        assertEquals(date + " " + entity + " " + buySell, expected, trades.getTotalSettledOnAndFor(buySell, date, entity));
+                    }
+                    
+                    if (entity.isPresent()) {
+                        Money highest = settled.stream().map(i -> i.getSettledMoney().get()).max(Money::compareTo).orElse(Money.ZERO);
+                        assertEquals(0, highest.compareTo(trades.getHighestSettledOnAndFor(date, entity.get())));
+                    }
+                }
+            }
+        }
+
+        @Test
+        public void topSettledSameAsRankedTest() {
+            Trades ranked = createSettledTrades(ColumnarInstructionStoreTest.createInstructions(2000));
+            Trades unranked = createUnsettledTrades(ColumnarInstructionStoreTest.createInstructions(2000)).settleWithoutRanking();
+            for (LocalDate date : ranked.getTrades().stream().map(Instruction::getEffectiveSettlementDate).collect(Collectors.toSet())) {
+                for (Optional<String> entity : Arrays.asList(Optional.<String>empty(), Optional.of(BAR), Optional.of(FOO), Optional.of(WIN))) {
+                    List<Instruction> settled = ranked.getTradesOnAndFor(date, entity).stream()
+                        .filter(Instruction::isSettled)
+                        .collect(Collectors.toList());
+                    for (int limit : new int[] {0, 1, 5, 1000}) {
+                        List<Integer> expected = ids(settled.subList(0, Math.min(limit, settled.size())));
+                        assertEquals(expected, ids(ranked.getTopSettledOnAndFor(date, entity, limit)));
+                        assertEquals(expected, ids(unranked.getTopSettledOnAndFor(date, entity, limit)));
+                    }
+                }
+                
+                for (BuySell buySell : BuySell.values()) {
+                    List<DailySummary.Totals> expected = new ArrayList<>(ranked.getDailySummary(date).getEntityTotals());
+                    expected.sort((a, b) -> buySell == BuySell.S ? b.getIncoming().compareTo(a.getIncoming()) : b.getOutgoing().compareTo(a.getOutgoing()));
+                    List<Optional<String>> expectedEntities = expected.stream().map(DailySummary.Totals::getEntity).collect(Collectors.toList());
+                    assertEquals(expectedEntities.subList(0, 2), ranked.getTopEntitiesOn(buySell, date, 2).stream().map(DailySummary.Totals::getEntity).collect(Collectors.toList()));
+                    assertEquals(expected.get(0).getIncoming(), unranked.getTopEntitiesOn(buySell, date, 1).get(0).getIncoming());
+                    assertEquals(expected.get(0).getOutgoing(), unranked.getTopEntitiesOn(buySell, date, 1).get(0).getOutgoing());
+                }
+            }
+            
+            assertTrue(ranked.getTopSettledOnAndFor(LocalDate.parse(SAT_02_JAN_2016).minusYears(1), Optional.empty(), 3).isEmpty());
+            assertTrue(ranked.getTopEntitiesOn(BuySell.S, LocalDate.parse(SAT_02_JAN_2016).minusYears(1), 3).isEmpty());
+        }
+
+        @Test
+        public void incrementalAddSameAsFullSettleTest() {
+            List<Instruction> arriving = ColumnarInstructionStoreTest.createInstructions(2000);
+            Trades incremental = createSettledTrades(new ArrayList<>(arriving.subList(0, 1000)));
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1200)), incremental.add(arriving.subList(1000, 1200)));
+            // The index is now built, so it is updated in place from here.
+            for (int i = 1200; i < 1300; i++) {
+                incremental.add(arriving.get(i));
+            }
+            
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1300)), incremental);
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(2000)), incremental.add(arriving.subList(1300, 2000)));
+        }
+
+        @Test
+        public void incrementalAddToUnsettledTradesTest() {
+            List<Instruction> arriving = ColumnarInstructionStoreTest.createInstructions(500);
+            arriving.subList(0, 200).forEach(Instruction::settle);
+            Trades incremental = createUnsettledTrades(arriving.subList(0, 200));
+            assertSameTrades(createIndividuallySettledTrades(300), incremental.add(arriving.subList(200, 300)));
+            assertSameTrades(createIndividuallySettledTrades(500), incremental.add(arriving.subList(300, 500)));
+        }
+
+        @Test
+        public void snapshotUnchangedByAddTest() {
+            List<Instruction> arriving = ColumnarInstructionStoreTest.createInstructions(1500);
+            Trades trades = createSettledTrades(new ArrayList<>(arriving.subList(0, 1000)));
+            Trades snapshot = trades.snapshot();
+            trades.add(arriving.subList(1000, 1200));
+            Trades laterSnapshot = trades.snapshot();
+            trades.add(arriving.subList(1200, 1500));
+            
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1000)), snapshot);
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1200)), laterSnapshot);
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1500)), trades);
+        }
+
+        @Test
+        public void addToSnapshotTest() {
+            List<Instruction> arriving = ColumnarInstructionStoreTest.createInstructions(1200);
+            Trades trades = createSettledTrades(new ArrayList<>(arriving.subList(0, 1000)));
+            trades.getTradesOn(arriving.get(0).getEffectiveSettlementDate());
+            trades.snapshot().add(arriving.subList(1000, 1200));
+            assertSameTrades(createSettledTrades(ColumnarInstructionStoreTest.createInstructions(1000)), trades);
+        }
+
+        @Test
+        public void snapshotOfUnsettledTradesTest() {
+            List<Instruction> arriving = ColumnarInstructionStoreTest.createInstructions(300);
+            arriving.subList(0, 200).forEach(Instruction::settle);
+            Trades trades = createUnsettledTrades(new ArrayList<>(arriving.subList(0, 200)));
+            Trades snapshot = trades.snapshot();
+            trades.add(arriving.subList(200, 300));
+            assertSameTrades(createIndividuallySettledTrades(200), snapshot);
+            assertSameTrades(createIndividuallySettledTrades(300), trades);
+        }
+
+        /**
+         * Create trades of settled instructions that are not ranked.
+         * @param count
+         * @return The trades.
+         */
+        private static Trades createIndividuallySettledTrades(int count) {
+            List<Instruction> instructions = ColumnarInstructionStoreTest.createInstructions(count);
+            instructions.forEach(Instruction::settle);
+            return createUnsettledTrades(instructions);
+        }
+
+        /**
+         * Assert that trades have the same ranking, index and summaries.
+         * @param expected
+         * @param actual 
+         */
+        private static void assertSameTrades(Trades expected, Trades actual) {
+            assertEquals(ids(expected.getTrades()), ids(actual.getTrades()));
+            for (LocalDate date : expected.getTrades().stream().map(Instruction::getEffectiveSettlementDate).collect(Collectors.toSet())) {
+                assertEquals(ids(expected.getTradesOn(date)), ids(actual.getTradesOn(date)));
+                DailySummary expectedSummary = expected.getDailySummary(date);
+                DailySummary actualSummary = actual.getDailySummary(date);
+                assertSameTotals(expectedSummary.getTotals(), actualSummary.getTotals());
+                assertEquals(expectedSummary.getEntityTotals().size(), actualSummary.getEntityTotals().size());
+                for (int i = 0; i < expectedSummary.getEntityTotals().size(); i++) {
+                    DailySummary.Totals totals = expectedSummary.getEntityTotals().get(i);
+                    assertSameTotals(totals, actualSummary.getEntityTotals().get(i));
+                    assertEquals(ids(expected.getTradesOnAndFor(date, totals.getEntity())), ids(actual.getTradesOnAndFor(date, totals.getEntity())));
+                }
+            }
+        }
+
+        private static void assertSameTotals(DailySummary.Totals expected, DailySummary.Totals actual) {
+            assertEquals(expected.getEntity(), actual.getEntity());
+            assertEquals(expected.getIncoming(), actual.getIncoming());
+            assertEquals(expected.getOutgoing(), actual.getOutgoing());
+            assertEquals(expected.getHighest(), actual.getHighest());
+        }
+
+        private static List<Integer> ids(List<Instruction> trades) {
+            return trades.stream().map(Instruction::getId).collect(Collectors.toList());
+        }
+
+        @Test
+        public void getDailySummaryTest() {
+            Trades trades = createSettledTrades(createInstructionStubs());
+            LocalDate date = LocalDate.parse(THU_07_JAN_2016);
+            DailySummary summary = trades.getDailySummary(date);
+            assertEquals(date, summary.getDate());
+            assertEquals(Money.parse("24080.00"), summary.getTotals().getOutgoing());
+            assertEquals(Money.parse("18060.00"), summary.getTotals().getIncoming());
+            assertFalse(summary.getTotals().getEntity().isPresent());
+            
+            Set<String> entities = new HashSet<>();
+            for (DailySummary.Totals totals : summary.getEntityTotals()) {
+                String entity = totals.getEntity().get();
+                assertTrue(entity, entities.add(entity));
+                assertEquals(trades.getSettledOnAndFor(BuySell.S, date, Optional.of(entity)), totals.getIncoming());
+                assertEquals(trades.getSettledOnAndFor(BuySell.B, date, Optional.of(entity)), totals.getOutgoing());
+                assertEquals(trades.getHighestSettledOnAndFor(date, entity), totals.getHighest());
+            }
+            
+            assertTrue(entities.contains(BAR));
+            assertEquals(trades.getTradesOn(date).stream().map(Instruction::getEntity).distinct().collect(Collectors.toList()),
+                summary.getEntityTotals().stream().map(t -> t.getEntity().get()).collect(Collectors.toList()));
+        }
+
+        @Test
+        public void getEmptyDailySummaryTest() {
+            DailySummary summary = createSettledTrades(createInstructionStubs()).getDailySummary(LocalDate.parse(SAT_02_JAN_2016));
+            assertTrue(summary.getEntityTotals().isEmpty());
+            assertEquals(Money.ZERO, summary.getTotals().getIncoming());
+            assertEquals(Money.ZERO, summary.getTotals().getHighest());
+        }
+
         @Test
         public void getTradesOnDateTest02() {
             this.assertGetTradesOnDate(SAT_02_JAN_2016, new int[] {});
@@ -890,12 +1157,9 @@ public class TradesTest {
                 assertEquals(new BigDecimal(expectedTotalOutOnFor[j]), totalOutOnFor);
                 assertEquals(new BigDecimal(expectedTotalInOnFor[j]), totalInOnFor);
                 
-                // TODO Fix the mock so that it can get the max settlement amount or it is a Mockito bug.
                 // Get the highest settlement amount for the entity on the day.
-//                Optional<BigDecimal> highestSettlementAmount = trades.getTradesOnAndFor(date, Optional.of(entity))..stream()
-//                    .max(Comparator.naturalOrder());
-//                assertTrue(highestSettlementAmount.isPresent());
-//                assertEquals(new BigDecimal(expectedhighestSettlementAmount[j]), highestSettlementAmount.get());
+                Money highestSettlementAmount = trades.getHighestSettledOnAndFor(date, entity);
+                assertEquals(0, Money.parse(expectedhighestSettlementAmount[j]).compareTo(highestSettlementAmount));
             }
 
             // Totals trades for all entities in and out on the day.
@@ -934,9 +1198,11 @@ public class TradesTest {
             Instruction ins = mock(Instruction.class);
             when(ins.getId()).thenReturn(id);
             when(ins.getEntity()).thenReturn(config.entity);
+            when(ins.getEntityId()).thenReturn(Instruction.ENTITIES.id(config.entity));
             when(ins.getBuySell()).thenReturn(config.buysell);
             when(ins.getEffectiveSettlementDate()).thenReturn(LocalDate.parse(config.effectiveSettlementDate));
             when(ins.getSettledAmount()).thenReturn(Optional.of(new BigDecimal(config.settledAmount)));
+            when(ins.getSettledMoney()).thenReturn(Optional.of(Money.parse(config.settledAmount)));
             when(ins.isSettled()).thenReturn(true);
             when(ins.compareTo(any(Instruction.class))).thenCallRealMethod();
             return ins;
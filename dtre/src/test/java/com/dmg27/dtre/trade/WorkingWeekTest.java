@@ -20,6 +20,8 @@ import org.junit.Test;
 import static com.dmg27.dtre.trade.WorkingWeek.*;
 import static com.dmg27.dtre.trade.WorkingWeekTestConstants.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for {@link WorkingWeek}.
@@ -206,6 +208,102 @@ public class WorkingWeekTest {
         this.assertNextWorkingDate(currencyCode, expectedWorkingDates, workingDates, expectedNextWorkingDates, nonWorkingDates);
     }
     
+    @Test
+    public void gappedWorkingWeekGetWorkingDateTest() {
+        HashMap<String, List<DayOfWeek>> workingWeeks = new HashMap<>();
+        workingWeeks.put(CURRENCY_CODE_GBP, Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY));
+        WorkingWeek workingWeek = new WorkingWeek(workingWeeks);
+        assertEquals(LocalDate.parse("2018-06-25"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-06-25")));
+        assertEquals(LocalDate.parse("2018-06-27"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-06-26")));
+        assertEquals(LocalDate.parse("2018-06-29"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-06-28")));
+        assertEquals(LocalDate.parse("2018-07-02"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-06-30")));
+        assertEquals(LocalDate.parse("2018-06-28"), workingWeek.getWorkingDate(CURRENCY_CODE_ALL, LocalDate.parse("2018-06-28")));
+    }
+    
+    @Test
+    public void isWorkingDayTest() {
+        assertTrue(this.createDefaultWorkingWeek().isWorkingDay(CURRENCY_CODE_GBP, LocalDate.parse("2018-06-29")));
+        assertFalse(this.createDefaultWorkingWeek().isWorkingDay(CURRENCY_CODE_GBP, LocalDate.parse("2018-07-01")));
+        assertFalse(this.createDefaultWorkingWeek().isWorkingDay(CURRENCY_CODE_AED, LocalDate.parse("2018-06-29")));
+        assertTrue(this.createDefaultWorkingWeek().isWorkingDay(CURRENCY_CODE_AED, LocalDate.parse("2018-07-01")));
+    }
+    
+    @Test
+    public void holidaysGetWorkingDateTest() {
+        HolidayCalendar holidays = new HolidayCalendar()
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-25"))
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-26"))
+            .holiday(CURRENCY_CODE_AED, LocalDate.parse("2018-12-02"));
+        WorkingWeek workingWeek = this.createDefaultWorkingWeek().withHolidays(holidays, 2018, 2018);
+        assertEquals(LocalDate.parse("2018-12-24"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-22")));
+        assertEquals(LocalDate.parse("2018-12-27"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-25")));
+        assertEquals(LocalDate.parse("2018-12-25"), workingWeek.getWorkingDate(CURRENCY_CODE_ALL, LocalDate.parse("2018-12-25")));
+        assertEquals(LocalDate.parse("2018-12-03"), workingWeek.getWorkingDate(CURRENCY_CODE_AED, LocalDate.parse("2018-11-30")));
+        assertFalse(workingWeek.isWorkingDay(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-26")));
+        assertTrue(workingWeek.isWorkingDay(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-27")));
+        
+        // The demo working week itself is unchanged.
+        assertEquals(LocalDate.parse("2018-12-25"), this.createDefaultWorkingWeek().getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-25")));
+    }
+    
+    @Test
+    public void holidaysOutsideYearsGetWorkingDateTest() {
+        HolidayCalendar holidays = new HolidayCalendar()
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-31"))
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2019-01-01"))
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2017-12-25"));
+        WorkingWeek workingWeek = this.createDefaultWorkingWeek().withHolidays(holidays, 2018, 2018);
+        assertEquals(LocalDate.parse("2019-01-02"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2018-12-29")));
+        assertEquals(LocalDate.parse("2019-01-02"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2019-01-01")));
+        assertEquals(LocalDate.parse("2017-12-26"), workingWeek.getWorkingDate(CURRENCY_CODE_GBP, LocalDate.parse("2017-12-23")));
+    }
+    
+    @Test
+    public void jointWorkingDateTest() {
+        HolidayCalendar holidays = new HolidayCalendar()
+            .holiday(CURRENCY_CODE_GBP, LocalDate.parse("2018-07-02"));
+        WorkingWeek workingWeek = this.createDefaultWorkingWeek().withHolidays(holidays, 2018, 2018);
+        assertEquals(LocalDate.parse("2018-07-03"), workingWeek.getJointWorkingDate(LocalDate.parse("2018-06-29"), CURRENCY_CODE_AED, CURRENCY_CODE_GBP));
+        assertEquals(LocalDate.parse("2018-06-28"), workingWeek.getJointWorkingDate(LocalDate.parse("2018-06-28"), CURRENCY_CODE_AED, CURRENCY_CODE_GBP));
+        assertEquals(LocalDate.parse("2018-06-29"), workingWeek.getJointWorkingDate(LocalDate.parse("2018-06-29")));
+    }
+    
+    @Test (expected = DtreException.class)
+    public void disjointJointWorkingDateTest() {
+        HashMap<String, List<DayOfWeek>> workingWeeks = new HashMap<>();
+        workingWeeks.put(CURRENCY_CODE_GBP, Arrays.asList(DayOfWeek.MONDAY));
+        workingWeeks.put(CURRENCY_CODE_SGD, Arrays.asList(DayOfWeek.TUESDAY));
+        new WorkingWeek(workingWeeks).getJointWorkingDate(LocalDate.parse("2018-06-29"), CURRENCY_CODE_GBP, CURRENCY_CODE_SGD);
+    }
+    
+    @Test (expected = DtreException.class)
+    public void holidaysBoundJointWorkingDateTest() {
+        HolidayCalendar holidays = new HolidayCalendar();
+        for (LocalDate date = LocalDate.parse("2018-01-01"); date.getYear() < 2020; date = date.plusDays(1)) {
+            holidays.holiday(CURRENCY_CODE_GBP, date);
+        }
+        
+        WorkingWeek workingWeek = this.createDefaultWorkingWeek().withHolidays(holidays, 2018, 2019);
+        workingWeek.getJointWorkingDate(LocalDate.parse("2018-01-01"), CURRENCY_CODE_AED, CURRENCY_CODE_GBP);
+    }
+    
+    @Test (expected = DtreException.class)
+    public void badHolidayYearsTest() {
+        this.createDefaultWorkingWeek().withHolidays(new HolidayCalendar(), 2019, 2018);
+    }
+    
+    @Test (expected = DtreException.class)
+    public void bogusCurrencyCodeHolidayTest() {
+        new HolidayCalendar().holiday("BOGUS", LocalDate.parse("2018-12-25"));
+    }
+    
+    @Test (expected = DtreException.class)
+    public void noWorkingDaysTest() {
+        HashMap<String, List<DayOfWeek>> workingWeeks = new HashMap<>();
+        workingWeeks.put(CURRENCY_CODE_GBP, Arrays.<DayOfWeek>asList());
+        new WorkingWeek(workingWeeks);
+    }
+    
     @Test (expected = DtreException.class)
     public void emptyCurrencyToWorkingWeekMapTest() {
         new WorkingWeek(new HashMap<String, List<DayOfWeek>>());
@@ -216,6 +314,11 @@ public class WorkingWeekTest {
         this.createDefaultWorkingWeek().getWorkingDate("BOGUS", LocalDate.parse("2018-06-27"));
     }
     
+    @Test (expected = DtreException.class)
+    public void nullCurrencyCodeGetNextWorkingDate() {
+        this.createDefaultWorkingWeek().getWorkingDate(null, LocalDate.parse("2018-06-27"));
+    }
+    
     @Test (expected = DtreException.class)
     public void bogusCurrencyCodeGetWorkingWeek() {
         this.createDefaultWorkingWeek().getWorkingWeek("BOGUS");
@@ -0,0 +1,69 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link BoundedHeap} class.
+ * @author douglasmcgee
+ */
+public class BoundedHeapTest {
+
+    @Test
+    public void sameAsSortedTest() {
+        Random random = new Random(27);
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(random.nextInt(100000));
+        }
+
+        List<Integer> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.reverseOrder());
+        for (int limit : new int[] {0, 1, 7, 100, 1000, 2000}) {
+            BoundedHeap<Integer> heap = new BoundedHeap<>(limit, Comparator.reverseOrder());
+            values.forEach(heap::offer);
+            assertEquals(sorted.subList(0, Math.min(limit, sorted.size())), heap.toList());
+        }
+    }
+
+    @Test
+    public void firstOfEqualKeptTest() {
+        BoundedHeap<String> heap = new BoundedHeap<>(3, Comparator.comparing(String::length));
+        for (String value : new String[] {"ccc", "a", "b", "dd", "c", "e"}) {
+            heap.offer(value);
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c"), heap.toList());
+    }
+
+    @Test
+    public void offerTest() {
+        BoundedHeap<Integer> heap = new BoundedHeap<>(1, Comparator.naturalOrder());
+        assertTrue(heap.offer(2));
+        assertFalse(heap.offer(2));
+        assertTrue(heap.offer(1));
+        assertEquals(1, heap.size());
+        assertFalse(new BoundedHeap<Integer>(0, Comparator.naturalOrder()).offer(1));
+    }
+
+    @Test (expected = DtreException.class)
+    public void negativeLimitTest() {
+        new BoundedHeap<Integer>(-1, Comparator.naturalOrder());
+    }
+}
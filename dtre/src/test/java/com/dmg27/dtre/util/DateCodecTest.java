@@ -0,0 +1,78 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link DateCodec} class.
+ * @author douglasmcgee
+ */
+public class DateCodecTest {
+
+    @Test
+    public void parseSameAsFormatterTest() {
+        for (LocalDate date = LocalDate.parse("1999-01-01"); date.isBefore(LocalDate.parse("2005-01-01")); date = date.plusDays(1)) {
+            String text = date.format(DateCodec.FORMAT);
+            assertEquals(date, DateCodec.parse(text));
+            assertEquals(date.toEpochDay(), DateCodec.parseEpochDay(text, 0, text.length()));
+            assertEquals(date.toEpochDay(), DateCodec.parseEpochDay(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), 0, text.length()));
+        }
+    }
+
+    @Test
+    public void formatSameAsFormatterTest() {
+        for (LocalDate date = LocalDate.parse("1999-01-01"); date.isBefore(LocalDate.parse("2005-01-01")); date = date.plusDays(1)) {
+            assertEquals(date.format(DateCodec.FORMAT), DateCodec.format(date));
+        }
+
+        assertEquals("01 Jan 0000", DateCodec.format(LocalDate.of(0, 1, 1)));
+        assertEquals(LocalDate.of(12345, 1, 1).format(DateCodec.FORMAT), DateCodec.format(LocalDate.of(12345, 1, 1)));
+    }
+
+    @Test
+    public void parseResolvesDayBeyondMonthTest() {
+        for (String text : new String[] {"31 Feb 2016", "30 Feb 2015", "31 Apr 2018", "29 Feb 2000", "29 Feb 1900"}) {
+            assertEquals(text, LocalDate.parse(text, DateCodec.FORMAT), DateCodec.parse(text));
+        }
+    }
+
+    @Test
+    public void parseUnusualFormTest() {
+        String text = "01 Jan +12345";
+        assertEquals(DateCodec.NO_DATE, DateCodec.parseEpochDay(text, 0, text.length()));
+        assertEquals(LocalDate.of(12345, 1, 1), DateCodec.parse(text));
+    }
+
+    @Test
+    public void parseBadDateTest() {
+        for (String text : new String[] {"00 Jan 2016", "32 Jan 2016", "01 jan 2016", "01 Foo 2016", "1 Jan 2016", "01-Jan-2016", "0x Jan 2016", "01 Jan 2o16", ""}) {
+            assertEquals(text, DateCodec.NO_DATE, DateCodec.parseEpochDay(text, 0, text.length()));
+            try {
+                DateCodec.parse(text);
+                fail(text);
+            } catch (DateTimeParseException ex) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void cachedDateTest() {
+        assertSame(DateCodec.parse("02 Jan 2016"), DateCodec.parse("02 Jan 2016"));
+        assertSame(DateCodec.format(LocalDate.parse("2016-01-02")), DateCodec.format(LocalDate.parse("2016-01-02")));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link SymbolTable} class.
+ * @author douglasmcgee
+ */
+public class SymbolTableTest {
+    
+    @Test
+    public void idTest() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(0, symbols.id("foo"));
+        assertEquals(1, symbols.id("bar"));
+        assertEquals(0, symbols.id(new String("foo")));
+        assertEquals(2, symbols.size());
+        assertEquals("bar", symbols.symbol(1));
+    }
+    
+    @Test
+    public void internTest() {
+        SymbolTable symbols = new SymbolTable();
+        String foo = symbols.intern("foo");
+        assertSame(foo, symbols.intern(new String("foo")));
+    }
+    
+    @Test
+    public void findTest() {
+        SymbolTable symbols = new SymbolTable();
+        symbols.id("foo");
+        assertEquals(0, symbols.find("foo"));
+        assertEquals(SymbolTable.NO_ID, symbols.find("bar"));
+        assertEquals(SymbolTable.NO_ID, symbols.find(null));
+        assertEquals(1, symbols.size());
+    }
+    
+    @Test
+    public void growTest() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, symbols.id("symbol" + i));
+        }
+        
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("symbol" + i, symbols.symbol(i));
+        }
+    }
+    
+    @Test
+    public void concurrentIdTest() throws InterruptedException, ExecutionException {
+        SymbolTable symbols = new SymbolTable();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[500];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = symbols.id("symbol" + i);
+                    }
+                    
+                    return ids;
+                }));
+            }
+            
+            for (Future<int[]> result : results) {
+                int[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals("symbol" + i, symbols.symbol(ids[i]));
+                }
+            }
+            
+            assertEquals(500, symbols.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test (expected = IndexOutOfBoundsException.class)
+    public void unknownIdTest() {
+        new SymbolTable().symbol(0);
+    }
+    
+    @Test (expected = DtreException.class)
+    public void nullSymbolTest() {
+        new SymbolTable().id(null);
+    }
+}
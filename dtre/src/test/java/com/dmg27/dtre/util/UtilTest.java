@@ -0,0 +1,80 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.util;
+
+import com.dmg27.dtre.core.DtreException;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link Util} class.
+ * @author douglasmcgee
+ */
+public class UtilTest {
+    @Test
+    public void getAllCurrencyCodesTest() {
+        Set<Currency> allCurrencies = Currency.getAvailableCurrencies();
+        allCurrencies.forEach(c -> Util.currencyOf(c.getCurrencyCode()));
+    }
+    
+    @Test (expected = DtreException.class)
+    public void getInvalidCurrencyCodeTest() {
+        Util.currencyOf("BOGUS");
+    }
+    
+    @Test
+    public void validateAllCurrencyCodesTest() {
+        Set<Currency> allCurrencies = Currency.getAvailableCurrencies();
+        allCurrencies.forEach(c -> Util.validateCurrencyCode(c.getCurrencyCode()));
+    }
+    
+    @Test (expected = DtreException.class)
+    public void validateInvalidCurrencyCodeTest() {
+        Util.validateCurrencyCode("BOGUS");
+    }
+    
+    @Test
+    public void currencyIdTest() {
+        Set<Currency> allCurrencies = Currency.getAvailableCurrencies();
+        assertEquals(allCurrencies.size(), Util.getCurrencyCount());
+        Set<Integer> ids = new HashSet<>();
+        allCurrencies.forEach(c -> {
+            int id = Util.currencyId(c.getCurrencyCode());
+            assertTrue(id >= 0 && id < Util.getCurrencyCount());
+            assertTrue(ids.add(id));
+            assertEquals(c.getCurrencyCode(), Util.currencyCode(id));
+            assertEquals(c, Util.currencyOf(c.getCurrencyCode()));
+        });
+    }
+    
+    @Test
+    public void findCurrencyIdTest() {
+        assertEquals(Util.currencyId("USD"), Util.findCurrencyId("USD"));
+        assertTrue(Util.isCurrencyCode("SGD"));
+        for (String code : new String[] {null, "", "usd", "US", "USDX", "U$D", "ZZZ"}) {
+            assertEquals(code, Util.NO_CURRENCY_ID, Util.findCurrencyId(code));
+            assertFalse(code, Util.isCurrencyCode(code));
+        }
+    }
+    
+    @Test (expected = DtreException.class)
+    public void nullCurrencyIdTest() {
+        Util.currencyId(null);
+    }
+    
+    @Test (expected = DtreException.class)
+    public void invalidCurrencyIdTest() {
+        Util.currencyCode(Util.getCurrencyCount());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ *
+ * Project: dtre
+ *
+ * Copyright 2018 (c) DMG27 Ltd.
+ *
+ */
+package com.dmg27.dtre.view;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the {@link RowTemplate} class.
+ * @author douglasmcgee
+ */
+public class RowTemplateTest {
+    
+    /**
+     * A template with left and right aligned fields.
+     */
+    private static final String TEMPLATE = "| %3.3s %-11.11s |  %3.3s   | %15.15s |\n";
+    
+    @Test
+    public void sameAsFormatterTest() throws IOException {
+        String[][] rows = new String[][] {
+            {"Monday", "04 Jan 2016", "foo", "1234.50"},
+            {"", "", "", ""},
+            {"Mo", "04 Jan", "foobar", "12345678901234567890.00"},
+        };
+        
+        RowTemplate template = new RowTemplate(TEMPLATE);
+        for (String[] row : rows) {
+            StringBuilder sb = new StringBuilder();
+            template.start().field(row[0]).field(row[1]).field(row[2]).field(row[3]).writeTo(sb);
+            assertEquals(String.format(TEMPLATE, (Object[]) row), sb.toString());
+            
+            StringWriter writer = new StringWriter();
+            template.start().field(row[0]).field(row[1]).field(row[2]).field(row[3]).writeTo(writer);
+            assertEquals(String.format(TEMPLATE, (Object[]) row), writer.toString());
+        }
+    }
+    
+    @Test
+    public void noFieldsTest() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        new RowTemplate("no fields").start().writeTo(sb);
+        assertEquals("no fields", sb.toString());
+    }
+    
+    @Test (expected = IllegalArgumentException.class)
+    public void badFieldTest() {
+        new RowTemplate("| %3.2s |");
+    }
+    
+    @Test (expected = IllegalStateException.class)
+    public void tooManyFieldsTest() {
+        new RowTemplate("| %3.3s |").start().field("a").field("b");
+    }
+    
+    @Test (expected = IllegalStateException.class)
+    public void tooFewFieldsTest() throws IOException {
+        new RowTemplate("| %3.3s | %3.3s |").start().field("a").writeTo(new StringBuilder());
+    }
+}
@@ -7,8 +7,12 @@
  */
 package com.dmg27.dtre.view;
 
+import com.dmg27.dtre.core.DtreException;
 import com.dmg27.dtre.trade.Instruction;
 import com.dmg27.dtre.trade.Trades;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -24,6 +28,7 @@ import static com.dmg27.dtre.trade.TradesTest.LAM;
 import static com.dmg27.dtre.trade.TradesTest.StubbedInstructionsTests.createSettledTrades;
 import static com.dmg27.dtre.trade.TradesTest.WIN;
 import static com.dmg27.dtre.trade.WorkingWeekTestConstants.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static com.dmg27.dtre.view.ViewFactory.textualReportView;
 
@@ -290,6 +295,55 @@ public class ViewTest {
         assertShowReport(trades);
     }
     
+    @Test
+    public void snapshotReportTest() {
+        List<Instruction> instructions = new ArrayList<>();
+        instructions.add(createInstruction(BAR, "S", "1.0", "USD", "04 Jan 2016", "04 Jan 2016", 6000, "1.0"));
+        instructions.add(createInstruction(CAR, "B", "1.0", "USD", "04 Jan 2016", "05 Jan 2016", 5000, "1.0"));
+        Trades trades = createSettledTrades(instructions);
+        LocalDate from = LocalDate.parse(MON_04_JAN_2016);
+        LocalDate to = LocalDate.parse(TUE_05_JAN_2016);
+        String report = textualReportView(trades, from, to);
+        
+        // Instructions added while a report on a snapshot is written do not appear in it.
+        Trades snapshot = trades.snapshot();
+        StringWriter out = new StringWriter();
+        AbstractReportViewParts parts = new TextualReportViewParts(snapshot);
+        try {
+            parts.header(from, to, out);
+            parts.tradesPerDay(from, out);
+            trades.add(createInstruction(FOO, "S", "1.0", "USD", "04 Jan 2016", "05 Jan 2016", 7000, "1.0"));
+            parts.tradesPerDay(to, out);
+            parts.footer(out);
+        } catch (IOException ex) {
+            throw new DtreException("unable to write the report", ex);
+        }
+        
+        assertEquals(report, out.toString());
+        assertEquals(report, textualReportView(snapshot, from, to));
+        assertFalse(report.equals(textualReportView(trades, from, to)));
+    }
+    
+    @Test (expected = DtreException.class)
+    public void failingOutputTest() {
+        Trades trades = createSettledTrades(new ArrayList<>());
+        Writer out = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("failing output");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        textualReportView(trades, LocalDate.parse(MON_04_JAN_2016), LocalDate.parse(MON_04_JAN_2016), out);
+    }
+    
     private void assertShowReport(Trades trades) {
         String from = trades.getTrades().stream()
             .filter(i -> i.isSettleable())
@@ -310,6 +364,11 @@ public class ViewTest {
         String report = textualReportView(trades, LocalDate.parse(from), LocalDate.parse(to));
         assertFalse(report.isEmpty());
         System.out.println(report);
+        
+        // Streaming the report writes the same text.
+        StringWriter out = new StringWriter();
+        textualReportView(trades, LocalDate.parse(from), LocalDate.parse(to), out);
+        assertEquals(report, out.toString());
     }
 }
 